@@ -0,0 +1,113 @@
+package com.udacity.catpoint.image.feed;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Frame source for cameras that drop snapshots into a directory. Every image file created or
+ * rewritten there after the source was opened becomes a frame; files already present are
+ * ignored.
+ *
+ * A file is read once its events have been quiet for the settle time, so a camera writing in
+ * several chunks is usually read whole. Cameras that write to a temporary name and rename the
+ * finished file are always read whole. Files that cannot be decoded are dropped by the pipeline.
+ */
+public class DirectoryFrameSource implements FrameSource {
+
+    private static final long DEFAULT_SETTLE_MILLIS = 50;
+    private static final Set<String> EXTENSIONS = Set.of("jpg", "jpeg", "png", "bmp", "gif");
+
+    private final Path directory;
+    private final WatchService watcher;
+    private final long settleMillis;
+    private final Set<Path> pending = new LinkedHashSet<>();
+    private long sequence;
+
+    public DirectoryFrameSource(Path directory) throws IOException {
+        this(directory, DEFAULT_SETTLE_MILLIS);
+    }
+
+    /**
+     * @param settleMillis how long a file's events must be quiet before it is read
+     */
+    public DirectoryFrameSource(Path directory, long settleMillis) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException(directory + " is not a directory");
+        }
+        this.directory = directory;
+        this.settleMillis = settleMillis;
+        this.watcher = directory.getFileSystem().newWatchService();
+        directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+    }
+
+    @Override
+    public RawFrame next() throws IOException, InterruptedException {
+        while (true) {
+            Iterator<Path> files = pending.iterator();
+            if (files.hasNext()) {
+                Path file = files.next();
+                files.remove();
+                byte[] data;
+                try {
+                    data = Files.readAllBytes(file);
+                } catch (NoSuchFileException e) {
+                    //renamed or deleted since the event
+                    continue;
+                }
+                if (data.length > 0) {
+                    return new RawFrame(file.getFileName().toString(), ++sequence, data, System.nanoTime());
+                }
+                continue;
+            }
+
+            try {
+                WatchKey key = watcher.take();
+                do {
+                    collect(key);
+                    key = watcher.poll(settleMillis, TimeUnit.MILLISECONDS);
+                } while (key != null);
+            } catch (ClosedWatchServiceException e) {
+                return null;
+            }
+        }
+    }
+
+    private void collect(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (isImage(name)) {
+                pending.add(directory.resolve(name));
+            }
+        }
+        key.reset();
+    }
+
+    private static boolean isImage(Path name) {
+        String fileName = name.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 && EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+}
@@ -0,0 +1,13 @@
+package com.udacity.catpoint.image.feed;
+
+/**
+ * What a full pipeline queue does with another frame.
+ */
+public enum DropPolicy {
+    /** Drop the oldest queued frame, so the stage always works on the newest one. */
+    LATEST_WINS,
+    /** Drop the new frame and keep the queued ones. */
+    DROP_NEWEST,
+    /** Make the previous stage wait for room; nothing is dropped. */
+    BLOCK
+}
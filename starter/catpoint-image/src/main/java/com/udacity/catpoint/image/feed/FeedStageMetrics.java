@@ -0,0 +1,83 @@
+package com.udacity.catpoint.image.feed;
+
+/**
+ * Point in time counters for one stage of a {@link FramePipeline}: how many frames it took from
+ * its queue, what became of them and how long it spent on each.
+ */
+public final class FeedStageMetrics {
+
+    private final String stage;
+    private final long processed;
+    private final long filtered;
+    private final long failed;
+    private final long dropped;
+    private final int queued;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    FeedStageMetrics(String stage, long processed, long filtered, long failed, long dropped, int queued,
+                     long totalNanos, long maxNanos) {
+        this.stage = stage;
+        this.processed = processed;
+        this.filtered = filtered;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.queued = queued;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * Frames this stage took from its queue.
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Frames this stage deliberately did not pass on, such as still frames at the gate.
+     */
+    public long getFiltered() {
+        return filtered;
+    }
+
+    /**
+     * Frames this stage could not handle, such as files that are not images.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Frames dropped by this stage's queue because the stage was busy.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Frames waiting in this stage's queue.
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    public long getMeanLatencyNanos() {
+        return processed == 0 ? 0 : totalNanos / processed;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "FeedStageMetrics{stage=" + stage + ", processed=" + processed + ", filtered=" + filtered
+                + ", failed=" + failed + ", dropped=" + dropped + ", queued=" + queued
+                + ", meanLatencyNanos=" + getMeanLatencyNanos() + ", maxLatencyNanos=" + maxNanos + "}";
+    }
+}
@@ -0,0 +1,295 @@
+package com.udacity.catpoint.image.feed;
+
+import com.udacity.catpoint.image.service.DetectionResult;
+import com.udacity.catpoint.image.service.ImageService;
+import com.udacity.catpoint.image.service.MotionGate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Headless camera feed: reads frames from a {@link FrameSource} and runs them through decode,
+ * gate and detect stages, each on its own daemon thread behind its own bounded queue. Results
+ * go to a consumer, for example the security service.
+ *
+ * With {@link PipelineOptions#latestFrameWins()} a slow stage makes the one before it drop old
+ * frames, so results stay close to live. Frames the {@link MotionGate} sees no motion in are not
+ * detected and produce no result; whatever was last reported still holds. {@link #getMetrics()}
+ * reports throughput, per stage latency, drops and the time from reading a frame to its result.
+ *
+ * Failures never stop a stage silently. A frame the source cannot read is counted and skipped;
+ * after several failed reads in a row the source is taken to be gone, and the pipeline finishes
+ * the frames it has and stops. An exception from the result consumer is counted and the next
+ * result is delivered as usual.
+ */
+public class FramePipeline implements Closeable {
+
+    private static final int MAX_CONSECUTIVE_READ_ERRORS = 5;
+
+    private final FrameSource source;
+    private final MotionGate gate;
+    private final ImageService detector;
+    private final Consumer<FrameResult> results;
+
+    private final StageQueue<RawFrame> decodeQueue;
+    private final StageQueue<DecodedFrame> gateQueue;
+    private final StageQueue<DecodedFrame> detectQueue;
+    private final Stage decodeStage = new Stage("decode");
+    private final Stage gateStage = new Stage("gate");
+    private final Stage detectStage = new Stage("detect");
+    private final List<Thread> threads = new ArrayList<>(4);
+
+    private volatile boolean closed;
+    private long startedAt;
+    private long finishedAt;
+    private long framesRead;
+    private long readErrors;
+    private long delivered;
+    private long deliveryErrors;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    private static final class DecodedFrame {
+        private final RawFrame frame;
+        private final BufferedImage image;
+
+        private DecodedFrame(RawFrame frame, BufferedImage image) {
+            this.frame = frame;
+            this.image = image;
+        }
+    }
+
+    private static final class Stage {
+        private final String name;
+        private long processed;
+        private long filtered;
+        private long failed;
+        private long totalNanos;
+        private long maxNanos;
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        private FeedStageMetrics snapshot(StageQueue<?> queue) {
+            return new FeedStageMetrics(name, processed, filtered, failed, queue.getDropped(), queue.size(),
+                    totalNanos, maxNanos);
+        }
+    }
+
+    /**
+     * Work done by one stage. Returns null to filter the frame out.
+     */
+    private interface Step<I, O> {
+        O apply(I input) throws IOException;
+    }
+
+    /**
+     * Where a stage hands its output.
+     */
+    private interface Output<O> {
+        void accept(O output) throws InterruptedException;
+    }
+
+    /**
+     * @param gate motion gate in front of the detector, or null to detect every decoded frame
+     */
+    public FramePipeline(FrameSource source, MotionGate gate, ImageService detector, PipelineOptions options,
+                         Consumer<FrameResult> results) {
+        this.source = source;
+        this.gate = gate;
+        this.detector = detector;
+        this.results = results;
+        this.decodeQueue = new StageQueue<>(options.getCapacity(), options.getDropPolicy());
+        this.gateQueue = new StageQueue<>(options.getCapacity(), options.getDropPolicy());
+        this.detectQueue = new StageQueue<>(options.getCapacity(), options.getDropPolicy());
+    }
+
+    public synchronized void start() {
+        if (!threads.isEmpty()) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        startedAt = System.nanoTime();
+        threads.add(newThread("read", this::read));
+        threads.add(newThread("decode",
+                () -> runStage(decodeStage, decodeQueue, this::decode, gateQueue::offer, gateQueue::close)));
+        threads.add(newThread("gate",
+                () -> runStage(gateStage, gateQueue, this::gate, detectQueue::offer, detectQueue::close)));
+        threads.add(newThread("detect",
+                () -> runStage(detectStage, detectQueue, this::detect, this::deliver, this::finish)));
+        threads.forEach(Thread::start);
+    }
+
+    private static Thread newThread(String stage, Runnable task) {
+        Thread thread = new Thread(task, "catpoint-feed-" + stage);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void read() {
+        int consecutiveErrors = 0;
+        try {
+            while (!closed) {
+                RawFrame frame;
+                try {
+                    frame = source.next();
+                } catch (IOException | RuntimeException e) {
+                    if (closed) {
+                        break;
+                    }
+                    synchronized (this) {
+                        readErrors++;
+                    }
+                    if (++consecutiveErrors == MAX_CONSECUTIVE_READ_ERRORS) {
+                        break;
+                    }
+                    continue;
+                }
+                if (frame == null) {
+                    break;
+                }
+                consecutiveErrors = 0;
+                synchronized (this) {
+                    framesRead++;
+                }
+                decodeQueue.offer(frame);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            //lets the stages finish what is queued and stop
+            decodeQueue.close();
+        }
+    }
+
+    private <I, O> void runStage(Stage stage, StageQueue<I> in, Step<I, O> step, Output<O> out, Runnable done) {
+        try {
+            I input;
+            while ((input = in.take()) != null) {
+                long start = System.nanoTime();
+                O output = null;
+                boolean failed = false;
+                try {
+                    output = step.apply(input);
+                } catch (IOException | RuntimeException e) {
+                    failed = true;
+                }
+                record(stage, System.nanoTime() - start, output == null && !failed, failed);
+                if (output != null) {
+                    out.accept(output);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            done.run();
+        }
+    }
+
+    private DecodedFrame decode(RawFrame frame) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(frame.getData()));
+        if (image == null) {
+            throw new IOException("Not an image: " + frame.getSource());
+        }
+        return new DecodedFrame(frame, image);
+    }
+
+    private DecodedFrame gate(DecodedFrame frame) {
+        return gate == null || gate.hasMotion(frame.image) ? frame : null;
+    }
+
+    private FrameResult detect(DecodedFrame frame) {
+        DetectionResult detection = detector.detect(frame.image);
+        RawFrame raw = frame.frame;
+        return new FrameResult(raw.getSource(), raw.getSequence(), detection, System.nanoTime() - raw.getCapturedNanos());
+    }
+
+    private void deliver(FrameResult result) {
+        if (closed) {
+            return;
+        }
+        synchronized (this) {
+            delivered++;
+            totalLatencyNanos += result.getLatencyNanos();
+            maxLatencyNanos = Math.max(maxLatencyNanos, result.getLatencyNanos());
+        }
+        try {
+            results.accept(result);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                deliveryErrors++;
+            }
+        }
+    }
+
+    private synchronized void record(Stage stage, long nanos, boolean filtered, boolean failed) {
+        stage.processed++;
+        if (filtered) {
+            stage.filtered++;
+        }
+        if (failed) {
+            stage.failed++;
+        }
+        stage.totalNanos += nanos;
+        stage.maxNanos = Math.max(stage.maxNanos, nanos);
+    }
+
+    private synchronized void finish() {
+        finishedAt = System.nanoTime();
+    }
+
+    /**
+     * Waits for a finite source to be read to its end and every frame to be handled.
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<Thread> started;
+        synchronized (this) {
+            started = new ArrayList<>(threads);
+        }
+        for (Thread thread : started) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(thread, remaining);
+            }
+            if (thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized PipelineMetrics getMetrics() {
+        long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+        List<FeedStageMetrics> stages = List.of(
+                decodeStage.snapshot(decodeQueue),
+                gateStage.snapshot(gateQueue),
+                detectStage.snapshot(detectQueue));
+        return new PipelineMetrics(framesRead, readErrors, delivered, deliveryErrors,
+                startedAt == 0 ? 0 : end - startedAt, totalLatencyNanos, maxLatencyNanos, stages);
+    }
+
+    /**
+     * Stops reading, discards queued frames and stops delivering results. A detection already
+     * running is left to finish on its daemon thread.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        decodeQueue.clear();
+        gateQueue.clear();
+        detectQueue.clear();
+        synchronized (this) {
+            threads.forEach(Thread::interrupt);
+        }
+        source.close();
+    }
+}
@@ -0,0 +1,40 @@
+package com.udacity.catpoint.image.feed;
+
+import com.udacity.catpoint.image.service.DetectionResult;
+
+/**
+ * Detection result for one frame that made it through a {@link FramePipeline}.
+ */
+public final class FrameResult {
+
+    private final String source;
+    private final long sequence;
+    private final DetectionResult detection;
+    private final long latencyNanos;
+
+    FrameResult(String source, long sequence, DetectionResult detection, long latencyNanos) {
+        this.source = source;
+        this.sequence = sequence;
+        this.detection = detection;
+        this.latencyNanos = latencyNanos;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public DetectionResult getDetection() {
+        return detection;
+    }
+
+    /**
+     * Time from reading the frame to having its result.
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+}
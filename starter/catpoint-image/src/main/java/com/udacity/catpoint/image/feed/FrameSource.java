@@ -0,0 +1,17 @@
+package com.udacity.catpoint.image.feed;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Produces encoded camera frames for a {@link FramePipeline}. Closing the source from another
+ * thread makes a blocked {@link #next()} return null.
+ */
+public interface FrameSource extends Closeable {
+
+    /**
+     * Blocks until the next frame is available.
+     * @return the frame, or null once the source is exhausted or closed
+     */
+    RawFrame next() throws IOException, InterruptedException;
+}
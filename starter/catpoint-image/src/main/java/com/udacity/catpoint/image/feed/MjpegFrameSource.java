@@ -0,0 +1,209 @@
+package com.udacity.catpoint.image.feed;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame source for a stream of JPEG images, such as an MJPEG recording, a file of concatenated
+ * snapshots or the body of a multipart MJPEG camera stream. Bytes between images, such as
+ * multipart boundaries and headers, are skipped.
+ *
+ * Images are split by walking their JPEG segments rather than by searching for the end marker,
+ * so embedded EXIF thumbnails do not cut a frame short.
+ */
+public class MjpegFrameSource implements FrameSource {
+
+    private static final int SOI = 0xD8;
+    private static final int EOI = 0xD9;
+    private static final int SOS = 0xDA;
+    private static final int TEM = 0x01;
+
+    private final InputStream in;
+    private final String name;
+    private final long frameIntervalNanos;
+    private final FrameBuffer frame = new FrameBuffer();
+    private final byte[] copyBuffer = new byte[8192];
+    private long sequence;
+    private long nextFrameAt;
+    private int pendingMarker = -1;
+
+    /**
+     * Reused for every frame, so only the finished frame is copied out.
+     */
+    private static final class FrameBuffer extends ByteArrayOutputStream {
+        private FrameBuffer() {
+            super(256 * 1024);
+        }
+
+        private void marker(int marker) {
+            write(0xFF);
+            write(marker);
+        }
+    }
+
+    /**
+     * @param framesPerSecond rate to deliver frames at, like a live camera, or 0 to read as fast
+     *                        as the pipeline takes them
+     */
+    public MjpegFrameSource(InputStream in, String name, double framesPerSecond) {
+        if (framesPerSecond < 0) {
+            throw new IllegalArgumentException("framesPerSecond must not be negative");
+        }
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 64 * 1024);
+        this.name = name;
+        this.frameIntervalNanos = framesPerSecond == 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / framesPerSecond);
+    }
+
+    public static MjpegFrameSource open(Path file, double framesPerSecond) throws IOException {
+        return new MjpegFrameSource(Files.newInputStream(file), file.getFileName().toString(), framesPerSecond);
+    }
+
+    /**
+     * After an {@link IOException} for a corrupt frame, the next call resumes at the following
+     * image.
+     */
+    @Override
+    public RawFrame next() throws IOException, InterruptedException {
+        pendingMarker = -1;
+        if (!seekStartOfImage()) {
+            return null;
+        }
+        frame.reset();
+        frame.marker(SOI);
+        while (true) {
+            int marker = nextMarker();
+            if (marker < 0) {
+                //truncated last image
+                return null;
+            }
+            frame.marker(marker);
+            if (marker == EOI) {
+                break;
+            }
+            if (marker == TEM || isRestart(marker)) {
+                continue;
+            }
+            int high = read();
+            int low = read();
+            frame.write(high);
+            frame.write(low);
+            copy(((high << 8) | low) - 2);
+            if (marker == SOS) {
+                copyEntropyCodedData();
+            }
+        }
+        pace();
+        return new RawFrame(name, ++sequence, frame.toByteArray(), System.nanoTime());
+    }
+
+    /**
+     * Skips to just past the next start of image marker.
+     * @return false at the end of the stream
+     */
+    private boolean seekStartOfImage() throws IOException {
+        int previous = -1;
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (previous == 0xFF && b == SOI) {
+                return true;
+            }
+            previous = b;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the next marker code, skipping fill bytes.
+     * @return the marker code, or -1 at the end of the stream
+     */
+    private int nextMarker() throws IOException {
+        if (pendingMarker >= 0) {
+            int marker = pendingMarker;
+            pendingMarker = -1;
+            return marker;
+        }
+        int b = in.read();
+        while (b >= 0 && b != 0xFF) {
+            b = in.read();
+        }
+        while (b == 0xFF) {
+            b = in.read();
+        }
+        return b;
+    }
+
+    /**
+     * Copies scan data up to the next marker, which is left in {@code pendingMarker}. Stuffed
+     * zero bytes and restart markers belong to the scan.
+     */
+    private void copyEntropyCodedData() throws IOException {
+        while (true) {
+            int b = read();
+            if (b != 0xFF) {
+                frame.write(b);
+                continue;
+            }
+            int next = read();
+            while (next == 0xFF) {
+                next = read();
+            }
+            if (next == 0x00 || isRestart(next)) {
+                frame.write(0xFF);
+                frame.write(next);
+            } else {
+                pendingMarker = next;
+                return;
+            }
+        }
+    }
+
+    private void copy(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Corrupt JPEG segment in " + name);
+        }
+        while (length > 0) {
+            int n = in.read(copyBuffer, 0, Math.min(length, copyBuffer.length));
+            if (n < 0) {
+                throw new IOException("Truncated JPEG in " + name);
+            }
+            frame.write(copyBuffer, 0, n);
+            length -= n;
+        }
+    }
+
+    private int read() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new IOException("Truncated JPEG in " + name);
+        }
+        return b;
+    }
+
+    private static boolean isRestart(int marker) {
+        return marker >= 0xD0 && marker <= 0xD7;
+    }
+
+    private void pace() throws InterruptedException {
+        if (frameIntervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (nextFrameAt == 0 || now - nextFrameAt > frameIntervalNanos) {
+            //first frame, or the pipeline fell behind: restart the clock instead of bursting
+            nextFrameAt = now;
+        } else if (nextFrameAt > now) {
+            TimeUnit.NANOSECONDS.sleep(nextFrameAt - now);
+        }
+        nextFrameAt += frameIntervalNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,99 @@
+package com.udacity.catpoint.image.feed;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Point in time counters for a whole {@link FramePipeline}: frames in, results out, and the
+ * time from reading a frame to having its result.
+ */
+public final class PipelineMetrics {
+
+    private final long framesRead;
+    private final long readErrors;
+    private final long results;
+    private final long deliveryErrors;
+    private final long elapsedNanos;
+    private final long totalLatencyNanos;
+    private final long maxLatencyNanos;
+    private final List<FeedStageMetrics> stages;
+
+    PipelineMetrics(long framesRead, long readErrors, long results, long deliveryErrors, long elapsedNanos,
+                    long totalLatencyNanos, long maxLatencyNanos, List<FeedStageMetrics> stages) {
+        this.framesRead = framesRead;
+        this.readErrors = readErrors;
+        this.results = results;
+        this.deliveryErrors = deliveryErrors;
+        this.elapsedNanos = elapsedNanos;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+        this.stages = List.copyOf(stages);
+    }
+
+    public long getFramesRead() {
+        return framesRead;
+    }
+
+    /**
+     * Reads from the source that failed and were skipped.
+     */
+    public long getReadErrors() {
+        return readErrors;
+    }
+
+    public long getResults() {
+        return results;
+    }
+
+    /**
+     * Results the consumer threw an exception for.
+     */
+    public long getDeliveryErrors() {
+        return deliveryErrors;
+    }
+
+    /**
+     * Frames read from the source per second since the pipeline started.
+     */
+    public double getInputFramesPerSecond() {
+        return perSecond(framesRead);
+    }
+
+    /**
+     * Results delivered per second since the pipeline started.
+     */
+    public double getResultsPerSecond() {
+        return perSecond(results);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Mean time from reading a frame to delivering its result.
+     */
+    public long getMeanLatencyNanos() {
+        return results == 0 ? 0 : totalLatencyNanos / results;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    /**
+     * Counters for the decode, gate and detect stages, in that order.
+     */
+    public List<FeedStageMetrics> getStages() {
+        return stages;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineMetrics{framesRead=" + framesRead + ", readErrors=" + readErrors
+                + ", results=" + results + ", deliveryErrors=" + deliveryErrors
+                + ", resultsPerSecond=" + String.format(Locale.ROOT, "%.1f", getResultsPerSecond())
+                + ", meanLatencyNanos=" + getMeanLatencyNanos() + ", maxLatencyNanos=" + maxLatencyNanos
+                + ", stages=" + stages + "}";
+    }
+}
@@ -0,0 +1,41 @@
+package com.udacity.catpoint.image.feed;
+
+/**
+ * Queue settings for a {@link FramePipeline}. Every stage gets its own queue with this capacity
+ * and drop policy.
+ */
+public final class PipelineOptions {
+
+    private static final int DEFAULT_CAPACITY = 2;
+
+    private final int capacity;
+    private final DropPolicy dropPolicy;
+
+    private PipelineOptions(int capacity, DropPolicy dropPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.dropPolicy = dropPolicy;
+    }
+
+    /**
+     * Short queues that drop the oldest frame, so results always describe a recent frame. Suits
+     * live cameras.
+     */
+    public static PipelineOptions latestFrameWins() {
+        return new PipelineOptions(DEFAULT_CAPACITY, DropPolicy.LATEST_WINS);
+    }
+
+    public static PipelineOptions queued(int capacity, DropPolicy dropPolicy) {
+        return new PipelineOptions(capacity, dropPolicy);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public DropPolicy getDropPolicy() {
+        return dropPolicy;
+    }
+}
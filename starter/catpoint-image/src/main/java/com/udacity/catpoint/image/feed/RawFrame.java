@@ -0,0 +1,41 @@
+package com.udacity.catpoint.image.feed;
+
+/**
+ * One encoded frame as read from a {@link FrameSource}, before decoding.
+ */
+public final class RawFrame {
+
+    private final String source;
+    private final long sequence;
+    private final byte[] data;
+    private final long capturedNanos;
+
+    /**
+     * @param source        where the frame came from, such as a file name
+     * @param sequence      position of the frame in its source, starting at 1
+     * @param data          encoded image bytes, owned by the frame from now on
+     * @param capturedNanos {@link System#nanoTime()} when the frame was read
+     */
+    public RawFrame(String source, long sequence, byte[] data, long capturedNanos) {
+        this.source = source;
+        this.sequence = sequence;
+        this.data = data;
+        this.capturedNanos = capturedNanos;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public long getCapturedNanos() {
+        return capturedNanos;
+    }
+}
@@ -0,0 +1,91 @@
+package com.udacity.catpoint.image.feed;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded hand-off between two pipeline stages that applies a {@link DropPolicy} when full.
+ * Once closed it accepts nothing more, and {@link #take()} drains what is left before returning
+ * null.
+ */
+final class StageQueue<T> {
+
+    private final Deque<T> items = new ArrayDeque<>();
+    private final int capacity;
+    private final DropPolicy policy;
+    private boolean closed;
+    private long dropped;
+
+    StageQueue(int capacity, DropPolicy policy) {
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * @return false if the item was dropped, or the queue is closed
+     */
+    synchronized boolean offer(T item) throws InterruptedException {
+        if (closed) {
+            return false;
+        }
+        if (items.size() >= capacity) {
+            switch (policy) {
+                case LATEST_WINS:
+                    items.pollFirst();
+                    dropped++;
+                    break;
+                case DROP_NEWEST:
+                    dropped++;
+                    return false;
+                case BLOCK:
+                    while (items.size() >= capacity && !closed) {
+                        wait();
+                    }
+                    if (closed) {
+                        return false;
+                    }
+                    break;
+            }
+        }
+        items.addLast(item);
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Blocks until an item is available.
+     * @return the oldest item, or null once the queue is closed and empty
+     */
+    synchronized T take() throws InterruptedException {
+        while (items.isEmpty()) {
+            if (closed) {
+                return null;
+            }
+            wait();
+        }
+        T item = items.pollFirst();
+        notifyAll();
+        return item;
+    }
+
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Closes the queue and discards what is still in it.
+     */
+    synchronized void clear() {
+        items.clear();
+        close();
+    }
+
+    synchronized int size() {
+        return items.size();
+    }
+
+    synchronized long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,197 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Image service decorator that remembers recent detection results by perceptual hash. A frame
+ * whose {@link PerceptualHash#dHash dHash} is within {@code maxDistance} bits of a cached frame
+ * gets the cached result instead of another call to the wrapped service. This suits fixed
+ * cameras, which send long runs of nearly identical frames.
+ *
+ * The cache holds at most {@code maxEntries} results, evicting the least recently used, and
+ * forgets a result {@code ttl} after it was computed.
+ */
+public class CachingImageService implements ImageService {
+
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    private static final int DEFAULT_MAX_DISTANCE = 4;
+
+    private final ImageService delegate;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final int maxDistance;
+
+    private final Map<Long, Cached> cache;
+    private long hits;
+    private long nearHits;
+    private long misses;
+    private long evictions;
+
+    private static final class Cached {
+        private final long hash;
+        private final DetectionResult result;
+        private final long expiresAtNanos;
+
+        private Cached(long hash, DetectionResult result, long expiresAtNanos) {
+            this.hash = hash;
+            this.result = result;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean expired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    public CachingImageService(ImageService delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, DEFAULT_TTL, DEFAULT_MAX_DISTANCE);
+    }
+
+    /**
+     * @param maxDistance largest Hamming distance between hashes still treated as the same frame;
+     *                    0 only reuses results for identical hashes
+     */
+    public CachingImageService(ImageService delegate, int maxEntries, Duration ttl, int maxDistance) {
+        if (maxEntries <= 0 || maxDistance < 0 || maxDistance > 64) {
+            throw new IllegalArgumentException("maxEntries must be positive and maxDistance between 0 and 64");
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.maxDistance = maxDistance;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                if (size() > CachingImageService.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public DetectionResult detect(BufferedImage image) {
+        if (image == null) {
+            return delegate.detect(null);
+        }
+        long hash = PerceptualHash.dHash(image);
+        DetectionResult cached = lookup(hash);
+        if (cached != null) {
+            return cached;
+        }
+        //call the wrapped service without holding the lock; it may take a network round trip
+        DetectionResult result = delegate.detect(image);
+        store(hash, result);
+        return result;
+    }
+
+    /**
+     * Answers what it can from the cache and passes the remaining frames to the wrapped service as
+     * one smaller batch.
+     */
+    @Override
+    public List<DetectionResult> detectAll(List<BufferedImage> images) {
+        DetectionResult[] results = new DetectionResult[images.size()];
+        long[] hashes = new long[images.size()];
+        List<BufferedImage> misses = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            BufferedImage image = images.get(i);
+            if (image != null) {
+                hashes[i] = PerceptualHash.dHash(image);
+                results[i] = lookup(hashes[i]);
+            }
+            if (results[i] == null) {
+                misses.add(image);
+                missIndexes.add(i);
+            }
+        }
+        if (!misses.isEmpty()) {
+            List<DetectionResult> scanned = delegate.detectAll(misses);
+            for (int j = 0; j < misses.size(); j++) {
+                int i = missIndexes.get(j);
+                results[i] = scanned.get(j);
+                if (images.get(i) != null) {
+                    store(hashes[i], results[i]);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private synchronized void store(long hash, DetectionResult result) {
+        cache.put(hash, new Cached(hash, result, System.nanoTime() + ttlNanos));
+    }
+
+    private synchronized DetectionResult lookup(long hash) {
+        long now = System.nanoTime();
+        Cached exact = cache.get(hash);
+        if (exact != null && !exact.expired(now)) {
+            hits++;
+            return exact.result;
+        }
+        if (maxDistance > 0) {
+            Cached nearest = null;
+            int nearestDistance = maxDistance + 1;
+            for (Iterator<Cached> it = cache.values().iterator(); it.hasNext(); ) {
+                Cached entry = it.next();
+                if (entry.expired(now)) {
+                    it.remove();
+                    continue;
+                }
+                int distance = PerceptualHash.distance(hash, entry.hash);
+                if (distance < nearestDistance) {
+                    nearest = entry;
+                    nearestDistance = distance;
+                }
+            }
+            if (nearest != null) {
+                //touch it so it counts as recently used
+                cache.get(nearest.hash);
+                hits++;
+                nearHits++;
+                return nearest.result;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Hits that matched a similar rather than an identical hash; included in {@link #getHits()}.
+     */
+    public synchronized long getNearHits() {
+        return nearHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,237 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Image service that tries cheap stages first and pays for the expensive backend only when they
+ * cannot decide:
+ * <ol>
+ *     <li>a {@link MotionGate}: a frame without motion gets the previous result. Only
+ *     {@link #detect} is gated, since it is fed the frames of one camera;</li>
+ *     <li>a fast local classifier: a cat confidence below {@code lowerConfidence} or at least
+ *     {@code upperConfidence} is taken as is;</li>
+ *     <li>the backend, for example {@code AwsImageService}, for confidences in between.</li>
+ * </ol>
+ *
+ * Results from the backend carry the timings of both classifiers, prefixed with
+ * {@code local.} and {@code backend.}. {@link #getMetrics()} reports how many frames each stage
+ * answered and how long it took, which is what the band should be tuned with.
+ */
+public class CascadeImageService implements ImageService {
+
+    private static final float DEFAULT_LOWER_CONFIDENCE = 20f;
+    private static final float DEFAULT_UPPER_CONFIDENCE = 80f;
+
+    private final StillFrameCache stillFrames;
+    private final ImageService local;
+    private final ImageService backend;
+    private final float lowerConfidence;
+    private final float upperConfidence;
+
+    private final Stage gateStage = new Stage("gate");
+    private final Stage localStage = new Stage("local");
+    private final Stage backendStage = new Stage("backend");
+
+    private static final class Stage {
+        private final String name;
+        private long frames;
+        private long resolved;
+        private long singleFrames;
+        private long totalNanos;
+        private long maxNanos;
+        private long batches;
+        private long batchNanos;
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        private void record(long nanos, boolean resolved) {
+            frames++;
+            singleFrames++;
+            if (resolved) {
+                this.resolved++;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        private void recordBatch(int size, int resolved, long nanos) {
+            frames += size;
+            this.resolved += resolved;
+            batches++;
+            batchNanos += nanos;
+        }
+
+        private StageMetrics snapshot() {
+            return new StageMetrics(name, frames, resolved, singleFrames, totalNanos, maxNanos, batches, batchNanos);
+        }
+    }
+
+    public CascadeImageService(ImageService local, ImageService backend) {
+        this(new MotionGate(), local, backend, DEFAULT_LOWER_CONFIDENCE, DEFAULT_UPPER_CONFIDENCE);
+    }
+
+    /**
+     * @param gate            motion gate in front of the classifiers, or null to classify every frame
+     * @param lowerConfidence local cat confidence below which the frame is taken to show no cat
+     * @param upperConfidence local cat confidence from which the frame is taken to show a cat
+     */
+    public CascadeImageService(MotionGate gate, ImageService local, ImageService backend,
+                               float lowerConfidence, float upperConfidence) {
+        if (lowerConfidence < 0 || upperConfidence > 100 || lowerConfidence > upperConfidence) {
+            throw new IllegalArgumentException("Confidence band must satisfy 0 <= lower <= upper <= 100");
+        }
+        this.stillFrames = gate == null ? null : new StillFrameCache(gate);
+        this.local = local;
+        this.backend = backend;
+        this.lowerConfidence = lowerConfidence;
+        this.upperConfidence = upperConfidence;
+    }
+
+    @Override
+    public DetectionResult detect(BufferedImage image) {
+        if (image == null) {
+            return DetectionResult.empty();
+        }
+        DetectionResult still = gate(image);
+        if (still != null) {
+            return still;
+        }
+        try {
+            return remember(classify(image));
+        } catch (RuntimeException e) {
+            if (stillFrames != null) {
+                stillFrames.invalidate();
+            }
+            throw e;
+        }
+    }
+
+    private DetectionResult classify(BufferedImage image) {
+        long start = System.nanoTime();
+        DetectionResult localResult = local.detect(image);
+        boolean certain = isCertain(localResult);
+        record(localStage, System.nanoTime() - start, certain);
+        if (certain) {
+            return localResult;
+        }
+
+        start = System.nanoTime();
+        DetectionResult backendResult = backend.detect(image);
+        record(backendStage, System.nanoTime() - start, true);
+        return combine(localResult, backendResult);
+    }
+
+    /**
+     * Classifies the frames locally as one batch and escalates the uncertain ones to the backend
+     * as another. Frames of a batch may come from different cameras, so they are not gated and
+     * leave the gate's background and last result alone. Each stage records the latency of the
+     * batch call as a whole, apart from the per frame latency of {@link #detect}.
+     */
+    @Override
+    public List<DetectionResult> detectAll(List<BufferedImage> images) {
+        DetectionResult[] results = new DetectionResult[images.size()];
+        List<BufferedImage> present = new ArrayList<>();
+        List<Integer> presentIndexes = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            BufferedImage image = images.get(i);
+            if (image == null) {
+                results[i] = DetectionResult.empty();
+            } else {
+                present.add(image);
+                presentIndexes.add(i);
+            }
+        }
+        if (present.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        long start = System.nanoTime();
+        List<DetectionResult> localResults = local.detectAll(present);
+        long localNanos = System.nanoTime() - start;
+        List<BufferedImage> uncertain = new ArrayList<>();
+        List<Integer> uncertainIndexes = new ArrayList<>();
+        for (int j = 0; j < present.size(); j++) {
+            DetectionResult localResult = localResults.get(j);
+            if (isCertain(localResult)) {
+                results[presentIndexes.get(j)] = localResult;
+            } else {
+                uncertain.add(present.get(j));
+                uncertainIndexes.add(j);
+            }
+        }
+        recordBatch(localStage, present.size(), present.size() - uncertain.size(), localNanos);
+
+        if (!uncertain.isEmpty()) {
+            start = System.nanoTime();
+            List<DetectionResult> backendResults = backend.detectAll(uncertain);
+            recordBatch(backendStage, uncertain.size(), uncertain.size(), System.nanoTime() - start);
+            for (int k = 0; k < uncertain.size(); k++) {
+                int j = uncertainIndexes.get(k);
+                results[presentIndexes.get(j)] = combine(localResults.get(j), backendResults.get(k));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Returns the previous result if the gate sees no motion, otherwise null.
+     */
+    private DetectionResult gate(BufferedImage image) {
+        if (stillFrames == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        DetectionResult still = stillFrames.lookup(image);
+        record(gateStage, System.nanoTime() - start, still != null);
+        return still;
+    }
+
+    private boolean isCertain(DetectionResult localResult) {
+        float confidence = localResult.getCatConfidence();
+        return confidence < lowerConfidence || confidence >= upperConfidence;
+    }
+
+    private synchronized void record(Stage stage, long nanos, boolean resolved) {
+        stage.record(nanos, resolved);
+    }
+
+    private synchronized void recordBatch(Stage stage, int size, int resolved, long nanos) {
+        stage.recordBatch(size, resolved, nanos);
+    }
+
+    private DetectionResult remember(DetectionResult result) {
+        if (stillFrames != null) {
+            stillFrames.store(result);
+        }
+        return result;
+    }
+
+    private static DetectionResult combine(DetectionResult localResult, DetectionResult backendResult) {
+        Map<String, Duration> timings = new LinkedHashMap<>();
+        localResult.getTimings().forEach((stage, time) -> timings.put("local." + stage, time));
+        backendResult.getTimings().forEach((stage, time) -> timings.put("backend." + stage, time));
+        return new DetectionResult(backendResult.getLabels(), timings);
+    }
+
+    /**
+     * Counters for the gate, local and backend stages, in that order. The gate is left out when
+     * the cascade has none.
+     */
+    public synchronized List<StageMetrics> getMetrics() {
+        List<StageMetrics> metrics = new ArrayList<>(3);
+        if (stillFrames != null) {
+            metrics.add(gateStage.snapshot());
+        }
+        metrics.add(localStage.snapshot());
+        metrics.add(backendStage.snapshot());
+        return metrics;
+    }
+}
@@ -0,0 +1,240 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+
+/**
+ * Feature extractor for {@link LocalImageService}. The image is reduced to a 64x64 thumbnail,
+ * then described by a histogram of oriented gradients (shape) followed by hue and brightness
+ * histograms (colour).
+ *
+ * Like {@link MotionGate}, common opaque image types are sampled straight from the raster's
+ * {@link DataBuffer}; other types go through {@link BufferedImage#getRGB(int, int)}, which
+ * allocates on every call for byte-backed images.
+ *
+ * An instance owns its scratch buffers and the returned feature array, so it is not thread-safe;
+ * keep one per thread.
+ */
+final class CatFeatures {
+
+    private static final int SIZE = 64;
+    private static final int CELL = 8;
+    private static final int CELLS = SIZE / CELL;
+    private static final int ORIENTATIONS = 9;
+    private static final int HUE_BINS = 12;
+    private static final int VALUE_BINS = 4;
+    //keeps flat cells, which have almost no gradient, from being normalized into noise
+    private static final float CELL_EPSILON = 1f;
+
+    static final int HOG_LENGTH = CELLS * CELLS * ORIENTATIONS;
+    static final int LENGTH = HOG_LENGTH + HUE_BINS + VALUE_BINS;
+
+    //unsigned orientation bin centres, 20 degrees apart
+    private static final float[] COS = new float[ORIENTATIONS];
+    private static final float[] SIN = new float[ORIENTATIONS];
+
+    static {
+        for (int i = 0; i < ORIENTATIONS; i++) {
+            double angle = (i + 0.5) * Math.PI / ORIENTATIONS;
+            COS[i] = (float) Math.cos(angle);
+            SIN[i] = (float) Math.sin(angle);
+        }
+    }
+
+    private final float[] luma = new float[SIZE * SIZE];
+    private final float[] features = new float[LENGTH];
+    //2x2 sample points per thumbnail pixel, as packed RGB
+    private final int[] samples = new int[4 * SIZE * SIZE];
+    private final int[] xs = new int[2 * SIZE];
+    private final int[] ys = new int[2 * SIZE];
+    private int sampledWidth;
+    private int sampledHeight;
+
+    /**
+     * Returns the features of the image in an array that is overwritten by the next call.
+     */
+    float[] extract(BufferedImage image) {
+        Arrays.fill(features, 0);
+        thumbnail(image);
+        gradients();
+        return features;
+    }
+
+    /**
+     * Fills the luminance thumbnail by averaging 2x2 sample points per thumbnail pixel, and
+     * accumulates the colour histograms on the way.
+     */
+    private void thumbnail(BufferedImage image) {
+        sample(image);
+        int hueBase = HOG_LENGTH;
+        int valueBase = HOG_LENGTH + HUE_BINS;
+        float pixelWeight = 1f / (SIZE * SIZE);
+        int row = 2 * SIZE;
+
+        for (int ty = 0; ty < SIZE; ty++) {
+            for (int tx = 0; tx < SIZE; tx++) {
+                int k = 2 * ty * row + 2 * tx;
+                int p00 = samples[k];
+                int p01 = samples[k + 1];
+                int p10 = samples[k + row];
+                int p11 = samples[k + row + 1];
+                int r = (((p00 >> 16) & 0xFF) + ((p01 >> 16) & 0xFF) + ((p10 >> 16) & 0xFF) + ((p11 >> 16) & 0xFF)) >> 2;
+                int g = (((p00 >> 8) & 0xFF) + ((p01 >> 8) & 0xFF) + ((p10 >> 8) & 0xFF) + ((p11 >> 8) & 0xFF)) >> 2;
+                int b = ((p00 & 0xFF) + (p01 & 0xFF) + (p10 & 0xFF) + (p11 & 0xFF)) >> 2;
+
+                luma[ty * SIZE + tx] = (r * 77 + g * 150 + b * 29) * (1f / (256 * 255));
+
+                int max = Math.max(r, Math.max(g, b));
+                int min = Math.min(r, Math.min(g, b));
+                features[valueBase + Math.min(VALUE_BINS - 1, max * VALUE_BINS / 256)] += pixelWeight;
+                if (max > min) {
+                    float saturation = (float) (max - min) / max;
+                    float hue;
+                    if (max == r) {
+                        hue = (float) (g - b) / (max - min);
+                    } else if (max == g) {
+                        hue = 2 + (float) (b - r) / (max - min);
+                    } else {
+                        hue = 4 + (float) (r - g) / (max - min);
+                    }
+                    if (hue < 0) {
+                        hue += 6;
+                    }
+                    int bin = Math.min(HUE_BINS - 1, (int) (hue * (HUE_BINS / 6f)));
+                    features[hueBase + bin] += saturation * pixelWeight;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the RGB of every sample point into {@code samples}, row by row.
+     */
+    private void sample(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width != sampledWidth || height != sampledHeight) {
+            positions(width, xs);
+            positions(height, ys);
+            sampledWidth = width;
+            sampledHeight = height;
+        }
+        Raster raster = image.getRaster();
+        SampleModel model = raster.getSampleModel();
+        DataBuffer buffer = raster.getDataBuffer();
+        //a sub-image shares its parent's buffer, offset by the translation
+        int originX = -raster.getSampleModelTranslateX();
+        int originY = -raster.getSampleModelTranslateY();
+
+        //premultiplied and grey images are left to getRGB, which converts their colours
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_BGR: {
+                SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) model;
+                int[] data = ((DataBufferInt) buffer).getData();
+                int[] shifts = packed.getBitOffsets();
+                sampleInts(data, buffer.getOffset() + originY * packed.getScanlineStride() + originX,
+                        packed.getScanlineStride(), shifts[0], shifts[1], shifts[2]);
+                return;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                ComponentSampleModel interleaved = (ComponentSampleModel) model;
+                byte[] data = ((DataBufferByte) buffer).getData();
+                int[] offsets = interleaved.getBandOffsets();
+                sampleBytes(data, buffer.getOffset() + originY * interleaved.getScanlineStride()
+                                + originX * interleaved.getPixelStride(),
+                        interleaved.getScanlineStride(), interleaved.getPixelStride(),
+                        offsets[0], offsets[1], offsets[2]);
+                return;
+            }
+            default: {
+                int k = 0;
+                for (int y : ys) {
+                    for (int x : xs) {
+                        samples[k++] = image.getRGB(x, y);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The two sample points of each thumbnail pixel, at a quarter and three quarters across it.
+     */
+    private static void positions(int size, int[] positions) {
+        for (int t = 0; t < SIZE; t++) {
+            positions[2 * t] = (int) ((t + 0.25f) * size / SIZE);
+            positions[2 * t + 1] = (int) ((t + 0.75f) * size / SIZE);
+        }
+    }
+
+    private void sampleInts(int[] data, int origin, int stride, int redShift, int greenShift, int blueShift) {
+        int k = 0;
+        for (int y : ys) {
+            int row = origin + y * stride;
+            for (int x : xs) {
+                int pixel = data[row + x];
+                samples[k++] = ((pixel >>> redShift) & 0xFF) << 16 | ((pixel >>> greenShift) & 0xFF) << 8
+                        | ((pixel >>> blueShift) & 0xFF);
+            }
+        }
+    }
+
+    private void sampleBytes(byte[] data, int origin, int stride, int pixelStride, int red, int green, int blue) {
+        int k = 0;
+        for (int y : ys) {
+            int row = origin + y * stride;
+            for (int x : xs) {
+                int pixel = row + x * pixelStride;
+                samples[k++] = (data[pixel + red] & 0xFF) << 16 | (data[pixel + green] & 0xFF) << 8
+                        | (data[pixel + blue] & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * Adds each thumbnail pixel's gradient magnitude to the nearest orientation bin of its cell,
+     * then normalizes every cell histogram.
+     */
+    private void gradients() {
+        for (int y = 0; y < SIZE; y++) {
+            int up = Math.max(0, y - 1) * SIZE;
+            int down = Math.min(SIZE - 1, y + 1) * SIZE;
+            int cellRow = (y / CELL) * CELLS;
+            for (int x = 0; x < SIZE; x++) {
+                float gx = luma[y * SIZE + Math.min(SIZE - 1, x + 1)] - luma[y * SIZE + Math.max(0, x - 1)];
+                float gy = luma[down + x] - luma[up + x];
+                int best = 0;
+                float bestProjection = -1;
+                for (int o = 0; o < ORIENTATIONS; o++) {
+                    float projection = Math.abs(gx * COS[o] + gy * SIN[o]);
+                    if (projection > bestProjection) {
+                        best = o;
+                        bestProjection = projection;
+                    }
+                }
+                features[(cellRow + x / CELL) * ORIENTATIONS + best] += (float) Math.sqrt(gx * gx + gy * gy);
+            }
+        }
+        for (int cell = 0; cell < CELLS * CELLS; cell++) {
+            int base = cell * ORIENTATIONS;
+            float sumSquares = CELL_EPSILON;
+            for (int o = 0; o < ORIENTATIONS; o++) {
+                sumSquares += features[base + o] * features[base + o];
+            }
+            float scale = (float) (1 / Math.sqrt(sumSquares));
+            for (int o = 0; o < ORIENTATIONS; o++) {
+                features[base + o] *= scale;
+            }
+        }
+    }
+}
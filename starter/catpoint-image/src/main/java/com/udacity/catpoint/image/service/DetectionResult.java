@@ -0,0 +1,112 @@
+package com.udacity.catpoint.image.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Everything one inference found in an image: each label with its confidence, from 0 to 100,
+ * and how long each stage of the detection took. Callers apply their own thresholds and rules
+ * to the same result instead of scanning the image again.
+ */
+public final class DetectionResult {
+
+    public static final String CAT = "Cat";
+
+    private static final DetectionResult EMPTY = new DetectionResult(Map.of(), Map.of());
+
+    private final Map<String, Float> labels;
+    private final Map<String, Duration> timings;
+
+    /**
+     * @param labels  confidence of each label, from 0 to 100
+     * @param timings time spent in each named stage, in the order the stages ran
+     */
+    public DetectionResult(Map<String, Float> labels, Map<String, Duration> timings) {
+        this(Collections.unmodifiableMap(new LinkedHashMap<>(labels)),
+                Collections.unmodifiableMap(new LinkedHashMap<>(timings)), true);
+    }
+
+    //takes maps nobody else can change, without copying them
+    private DetectionResult(Map<String, Float> labels, Map<String, Duration> timings, boolean unmodifiable) {
+        this.labels = labels;
+        this.timings = timings;
+    }
+
+    /**
+     * A result with no labels, for example for a missing image.
+     */
+    public static DetectionResult empty() {
+        return EMPTY;
+    }
+
+    public static DetectionResult cat(float confidence, Map<String, Duration> timings) {
+        return new DetectionResult(Map.of(CAT, confidence), timings);
+    }
+
+    /**
+     * A cat result timed in two stages, for local classifiers that return one per scan.
+     */
+    static DetectionResult cat(float confidence, String firstStage, long firstNanos,
+                               String secondStage, long secondNanos) {
+        Map<String, Duration> timings = new LinkedHashMap<>(4);
+        timings.put(firstStage, Duration.ofNanos(firstNanos));
+        timings.put(secondStage, Duration.ofNanos(secondNanos));
+        return new DetectionResult(Map.of(CAT, confidence), Collections.unmodifiableMap(timings), true);
+    }
+
+    public Map<String, Float> getLabels() {
+        return labels;
+    }
+
+    /**
+     * Confidence of the label, ignoring case, or 0 if it was not found.
+     */
+    public float getConfidence(String label) {
+        float confidence = 0;
+        for (Map.Entry<String, Float> entry : labels.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(label)) {
+                confidence = Math.max(confidence, entry.getValue());
+            }
+        }
+        return confidence;
+    }
+
+    /**
+     * Highest confidence among labels naming a cat. Like the original AWS check, any label
+     * containing "cat" counts.
+     */
+    public float getCatConfidence() {
+        float confidence = 0;
+        for (Map.Entry<String, Float> entry : labels.entrySet()) {
+            if (entry.getKey().toLowerCase(Locale.ROOT).contains("cat")) {
+                confidence = Math.max(confidence, entry.getValue());
+            }
+        }
+        return confidence;
+    }
+
+    /**
+     * Whether a cat label reached the threshold. A result without any cat label never contains a
+     * cat, even at threshold 0.
+     */
+    public boolean containsCat(float confidenceThreshold) {
+        float confidence = getCatConfidence();
+        return confidence > 0 && confidence >= confidenceThreshold;
+    }
+
+    public Map<String, Duration> getTimings() {
+        return timings;
+    }
+
+    public Duration getTotalTime() {
+        return timings.values().stream().reduce(Duration.ZERO, Duration::plus);
+    }
+
+    @Override
+    public String toString() {
+        return "DetectionResult" + labels + " in " + getTotalTime().toMillis() + "ms";
+    }
+}
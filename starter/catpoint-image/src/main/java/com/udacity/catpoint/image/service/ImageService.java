@@ -1,10 +1,45 @@
 package com.udacity.catpoint.image.service;
 
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Interface describing the Image Service behavior used by SecurityService.
  */
 public interface ImageService {
-    boolean imageContainsCat(BufferedImage image, float confidenceThreshold);
+
+    /**
+     * Runs one inference and returns every label found, with confidences and timings. A null
+     * image gives an empty result unless the implementation says otherwise.
+     */
+    DetectionResult detect(BufferedImage image);
+
+    default boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
+        return detect(image).containsCat(confidenceThreshold);
+    }
+
+    /**
+     * Runs inference on several frames, for example one from each camera, and returns the results
+     * in the same order. Implementations override this to share work across the batch; the
+     * default scans the frames one after another.
+     */
+    default List<DetectionResult> detectAll(List<BufferedImage> images) {
+        List<DetectionResult> results = new ArrayList<>(images.size());
+        for (BufferedImage image : images) {
+            results.add(detect(image));
+        }
+        return results;
+    }
+
+    /**
+     * Batch form of {@link #imageContainsCat}, with verdicts in the order of the frames.
+     */
+    default List<Boolean> imagesContainCat(List<BufferedImage> images, float confidenceThreshold) {
+        List<Boolean> verdicts = new ArrayList<>(images.size());
+        for (DetectionResult result : detectAll(images)) {
+            verdicts.add(result.containsCat(confidenceThreshold));
+        }
+        return verdicts;
+    }
 }
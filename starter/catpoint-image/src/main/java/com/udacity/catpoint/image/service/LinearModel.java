@@ -0,0 +1,77 @@
+package com.udacity.catpoint.image.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Logistic regression weights for {@link LocalImageService}. Immutable, so one model can serve
+ * any number of threads.
+ *
+ * The text format is a {@code bias} line followed by one weight per feature, separated by
+ * whitespace; lines starting with {@code #} are comments.
+ */
+public final class LinearModel {
+
+    private final float[] weights;
+    private final float bias;
+
+    public LinearModel(float[] weights, float bias) {
+        this.weights = weights.clone();
+        this.bias = bias;
+    }
+
+    public static LinearModel load(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Float bias = null;
+        float[] weights = new float[64];
+        int count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("bias")) {
+                bias = parse(line.substring("bias".length()).trim());
+                continue;
+            }
+            for (String token : line.split("\\s+")) {
+                if (count == weights.length) {
+                    weights = Arrays.copyOf(weights, count * 2);
+                }
+                weights[count++] = parse(token);
+            }
+        }
+        if (bias == null || count == 0) {
+            throw new IOException("Model has no bias or no weights");
+        }
+        return new LinearModel(Arrays.copyOf(weights, count), bias);
+    }
+
+    private static float parse(String token) throws IOException {
+        try {
+            return Float.parseFloat(token);
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad model value: " + token, e);
+        }
+    }
+
+    public int getFeatureCount() {
+        return weights.length;
+    }
+
+    /**
+     * Probability, from 0 to 100, that the features describe the positive class.
+     */
+    public float confidence(float[] features) {
+        float logit = bias;
+        for (int i = 0; i < weights.length; i++) {
+            logit += weights[i] * features[i];
+        }
+        return (float) (100 / (1 + Math.exp(-logit)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Image service that classifies images on the local CPU with no network access. Images are
+ * described by {@link CatFeatures} and scored by a {@link LinearModel}; the default model is
+ * bundled with this module.
+ *
+ * Safe for concurrent scans: the model is immutable and each thread reuses its own feature
+ * buffers, so feature extraction allocates nothing after the thread's first scan. Batches are
+ * scored in parallel on the common fork/join pool.
+ */
+public class LocalImageService implements ImageService {
+
+    private static final String BUNDLED_MODEL = "cat-detector.model";
+
+    private final LinearModel model;
+    private final ThreadLocal<CatFeatures> features = ThreadLocal.withInitial(CatFeatures::new);
+
+    public LocalImageService() {
+        this(bundledModel());
+    }
+
+    public LocalImageService(LinearModel model) {
+        if (model.getFeatureCount() != CatFeatures.LENGTH) {
+            throw new IllegalArgumentException("Model has " + model.getFeatureCount()
+                    + " weights, expected " + CatFeatures.LENGTH);
+        }
+        this.model = model;
+    }
+
+    private static LinearModel bundledModel() {
+        try (InputStream in = LocalImageService.class.getResourceAsStream(BUNDLED_MODEL)) {
+            if (in == null) {
+                throw new IllegalStateException("Bundled model " + BUNDLED_MODEL + " is missing");
+            }
+            return LinearModel.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Confidence, from 0 to 100, that the image shows a cat.
+     */
+    public float catConfidence(BufferedImage image) {
+        return model.confidence(features.get().extract(image));
+    }
+
+    /**
+     * Reports a single {@link DetectionResult#CAT} label, with the time spent extracting features
+     * and scoring them.
+     */
+    @Override
+    public DetectionResult detect(BufferedImage image) {
+        if (image == null) {
+            return DetectionResult.empty();
+        }
+        long start = System.nanoTime();
+        float[] extracted = features.get().extract(image);
+        long extractedAt = System.nanoTime();
+        float confidence = model.confidence(extracted);
+        long scoredAt = System.nanoTime();
+
+        return DetectionResult.cat(confidence, "features", extractedAt - start, "classify", scoredAt - extractedAt);
+    }
+
+    @Override
+    public List<DetectionResult> detectAll(List<BufferedImage> images) {
+        if (images.size() < 2) {
+            return ImageService.super.detectAll(images);
+        }
+        //the stream keeps encounter order, so results line up with the frames
+        return images.parallelStream()
+                .map(this::detect)
+                .collect(Collectors.toList());
+    }
+}
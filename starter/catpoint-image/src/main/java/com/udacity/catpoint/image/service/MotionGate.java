@@ -0,0 +1,210 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Decides whether a camera frame differs enough from the recent past to be worth scanning.
+ * Each frame is sampled on a fixed grid of luminance values and compared against a background
+ * model; the frame counts as motion when the fraction of samples that moved more than
+ * {@code pixelThreshold} reaches {@code minChangedFraction}. Samples below the threshold are
+ * blended into a running average, which absorbs noise and slow lighting changes, while changed
+ * samples replace the background outright, so an object that arrives and stays still is
+ * reported once.
+ *
+ * Common image types are read straight from the raster's {@link DataBuffer}, so the cost
+ * depends only on the grid size, not on the frame resolution. Other types go through
+ * {@link BufferedImage#getRGB(int, int)}.
+ */
+public final class MotionGate {
+
+    private static final int GRID_WIDTH = 160;
+    private static final int GRID_HEIGHT = 90;
+    //fixed-point scale of the background model
+    private static final int SHIFT = 8;
+
+    private static final int DEFAULT_PIXEL_THRESHOLD = 24;
+    private static final double DEFAULT_MIN_CHANGED_FRACTION = 0.01;
+    private static final double DEFAULT_LEARNING_RATE = 0.125;
+
+    private final int pixelThreshold;
+    private final double minChangedFraction;
+    //weight of an unchanged sample in the background, out of 1 << SHIFT
+    private final int learningWeight;
+
+    private int width = -1;
+    private int height = -1;
+    private int[] xs;
+    private int[] ys;
+    private int[] background;
+    private int[] luma;
+    private double lastChangedFraction = 1;
+
+    public MotionGate() {
+        this(DEFAULT_PIXEL_THRESHOLD, DEFAULT_MIN_CHANGED_FRACTION, DEFAULT_LEARNING_RATE);
+    }
+
+    /**
+     * @param pixelThreshold     luminance difference, 0 to 255, for a sample to count as changed
+     * @param minChangedFraction fraction of changed samples that counts as motion
+     * @param learningRate       weight of an unchanged sample in the background, above 0 and at
+     *                           most 1; higher values follow slow lighting changes faster
+     */
+    public MotionGate(int pixelThreshold, double minChangedFraction, double learningRate) {
+        if (pixelThreshold < 0 || pixelThreshold > 255 || minChangedFraction < 0 || minChangedFraction > 1
+                || learningRate <= 0 || learningRate > 1) {
+            throw new IllegalArgumentException("pixelThreshold must be 0-255, minChangedFraction 0-1 and learningRate in (0, 1]");
+        }
+        this.pixelThreshold = pixelThreshold;
+        this.minChangedFraction = minChangedFraction;
+        this.learningWeight = Math.max(1, (int) Math.round(learningRate * (1 << SHIFT)));
+    }
+
+    /**
+     * Compares the frame with the background, then folds it into the background. The first frame,
+     * and the first after a change of resolution, always counts as motion.
+     */
+    public synchronized boolean hasMotion(BufferedImage image) {
+        return update(image) >= minChangedFraction;
+    }
+
+    /**
+     * Fraction of samples that changed in the last frame passed to {@link #hasMotion}.
+     */
+    public synchronized double getLastChangedFraction() {
+        return lastChangedFraction;
+    }
+
+    /**
+     * Forgets the background, so the next frame counts as motion.
+     */
+    public synchronized void reset() {
+        width = -1;
+        height = -1;
+        background = null;
+        luma = null;
+    }
+
+    private double update(BufferedImage image) {
+        boolean fresh = image.getWidth() != width || image.getHeight() != height;
+        if (fresh) {
+            resize(image.getWidth(), image.getHeight());
+        }
+        sample(image, luma);
+
+        int changed = 0;
+        for (int i = 0; i < luma.length; i++) {
+            int value = luma[i] << SHIFT;
+            if (fresh) {
+                background[i] = value;
+                continue;
+            }
+            int diff = value - background[i];
+            if (Math.abs(diff) > pixelThreshold << SHIFT) {
+                //take the new value at once, so a change is reported once and not until the average catches up
+                changed++;
+                background[i] = value;
+            } else {
+                background[i] += (diff * learningWeight) >> SHIFT;
+            }
+        }
+        lastChangedFraction = fresh ? 1 : (double) changed / luma.length;
+        return lastChangedFraction;
+    }
+
+    private void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        xs = gridPositions(width, GRID_WIDTH);
+        ys = gridPositions(height, GRID_HEIGHT);
+        background = new int[xs.length * ys.length];
+        luma = new int[background.length];
+    }
+
+    private static int[] gridPositions(int size, int cells) {
+        int n = Math.min(size, cells);
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = (int) ((i + 0.5) * size / n);
+        }
+        return positions;
+    }
+
+    private void sample(BufferedImage image, int[] luma) {
+        Raster raster = image.getRaster();
+        SampleModel model = raster.getSampleModel();
+        DataBuffer buffer = raster.getDataBuffer();
+        //a sub-image shares its parent's buffer, offset by the translation
+        int originX = -raster.getSampleModelTranslateX();
+        int originY = -raster.getSampleModelTranslateY();
+
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_ARGB_PRE:
+            case BufferedImage.TYPE_INT_BGR: {
+                SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) model;
+                int[] data = ((DataBufferInt) buffer).getData();
+                int[] shifts = packed.getBitOffsets();
+                sampleInts(data, buffer.getOffset() + originY * packed.getScanlineStride() + originX,
+                        packed.getScanlineStride(), shifts[0], shifts[1], shifts[2], luma);
+                return;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+            case BufferedImage.TYPE_4BYTE_ABGR_PRE:
+            case BufferedImage.TYPE_BYTE_GRAY: {
+                ComponentSampleModel interleaved = (ComponentSampleModel) model;
+                byte[] data = ((DataBufferByte) buffer).getData();
+                int[] offsets = interleaved.getBandOffsets();
+                boolean gray = offsets.length == 1;
+                sampleBytes(data, buffer.getOffset() + originY * interleaved.getScanlineStride()
+                                + originX * interleaved.getPixelStride(),
+                        interleaved.getScanlineStride(), interleaved.getPixelStride(),
+                        offsets[0], gray ? offsets[0] : offsets[1], gray ? offsets[0] : offsets[2], luma);
+                return;
+            }
+            default:
+                for (int j = 0; j < ys.length; j++) {
+                    for (int i = 0; i < xs.length; i++) {
+                        luma[j * xs.length + i] = luma(image.getRGB(xs[i], ys[j]), 16, 8, 0);
+                    }
+                }
+        }
+    }
+
+    private void sampleInts(int[] data, int origin, int stride, int redShift, int greenShift, int blueShift, int[] luma) {
+        int k = 0;
+        for (int y : ys) {
+            int row = origin + y * stride;
+            for (int x : xs) {
+                luma[k++] = luma(data[row + x], redShift, greenShift, blueShift);
+            }
+        }
+    }
+
+    private void sampleBytes(byte[] data, int origin, int stride, int pixelStride,
+                             int red, int green, int blue, int[] luma) {
+        int k = 0;
+        for (int y : ys) {
+            int row = origin + y * stride;
+            for (int x : xs) {
+                int pixel = row + x * pixelStride;
+                luma[k++] = ((data[pixel + red] & 0xFF) * 77 + (data[pixel + green] & 0xFF) * 150
+                        + (data[pixel + blue] & 0xFF) * 29) >> 8;
+            }
+        }
+    }
+
+    private static int luma(int pixel, int redShift, int greenShift, int blueShift) {
+        //integer approximation of 0.299 R + 0.587 G + 0.114 B, as in PerceptualHash
+        return (((pixel >>> redShift) & 0xFF) * 77 + ((pixel >>> greenShift) & 0xFF) * 150
+                + ((pixel >>> blueShift) & 0xFF) * 29) >> 8;
+    }
+}
@@ -0,0 +1,82 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Image service decorator that only calls the wrapped service for frames the {@link MotionGate}
+ * sees motion in. A still frame gets the result of the last frame that was scanned, so a cat
+ * that walked in and sat down is still reported until the scene changes again.
+ */
+public class MotionGatedImageService implements ImageService {
+
+    private final ImageService delegate;
+    private final StillFrameCache stillFrames;
+
+    private long scanned;
+    private long skipped;
+
+    public MotionGatedImageService(ImageService delegate) {
+        this(delegate, new MotionGate());
+    }
+
+    public MotionGatedImageService(ImageService delegate, MotionGate gate) {
+        this.delegate = delegate;
+        this.stillFrames = new StillFrameCache(gate);
+    }
+
+    /**
+     * If the wrapped service fails on a frame with motion, the last result is forgotten, so the
+     * next frame is scanned even if it is still.
+     */
+    @Override
+    public DetectionResult detect(BufferedImage image) {
+        if (image == null) {
+            return delegate.detect(null);
+        }
+        DetectionResult still = stillFrames.lookup(image);
+        synchronized (this) {
+            if (still != null) {
+                skipped++;
+                return still;
+            }
+            scanned++;
+        }
+        DetectionResult result;
+        try {
+            result = delegate.detect(image);
+        } catch (RuntimeException e) {
+            stillFrames.invalidate();
+            throw e;
+        }
+        stillFrames.store(result);
+        return result;
+    }
+
+    /**
+     * Passes the whole batch to the wrapped service. Frames of a batch may come from different
+     * cameras, so they are not gated and leave the gate's background and last result alone.
+     */
+    @Override
+    public List<DetectionResult> detectAll(List<BufferedImage> images) {
+        return delegate.detectAll(images);
+    }
+
+    public MotionGate getGate() {
+        return stillFrames.getGate();
+    }
+
+    /**
+     * Frames passed on to the wrapped service.
+     */
+    public synchronized long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Frames answered with the previous result because nothing moved.
+     */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,58 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Difference hash (dHash) of an image: the image is reduced to a 9x8 grayscale grid and each
+ * bit records whether a cell is darker than its right-hand neighbour. Frames that look alike
+ * get hashes that differ in only a few bits, whatever their size or compression noise.
+ */
+public final class PerceptualHash {
+
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+    //sample points per grid cell along each axis
+    private static final int SAMPLES = 4;
+
+    private PerceptualHash() {
+    }
+
+    public static long dHash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int columns = GRID_WIDTH * SAMPLES;
+        int rows = GRID_HEIGHT * SAMPLES;
+        int[] cells = new int[GRID_WIDTH * GRID_HEIGHT];
+        int[] row = new int[columns];
+
+        for (int sy = 0; sy < rows; sy++) {
+            int y = (int) ((sy + 0.5) * height / rows);
+            for (int sx = 0; sx < columns; sx++) {
+                row[sx] = image.getRGB((int) ((sx + 0.5) * width / columns), y);
+            }
+            int cellRow = (sy / SAMPLES) * GRID_WIDTH;
+            for (int sx = 0; sx < columns; sx++) {
+                int rgb = row[sx];
+                //integer luma approximation of 0.299 R + 0.587 G + 0.114 B
+                int luma = (((rgb >> 16) & 0xFF) * 77 + ((rgb >> 8) & 0xFF) * 150 + (rgb & 0xFF) * 29) >> 8;
+                cells[cellRow + sx / SAMPLES] += luma;
+            }
+        }
+
+        long hash = 0;
+        for (int y = 0; y < GRID_HEIGHT; y++) {
+            for (int x = 0; x < GRID_WIDTH - 1; x++) {
+                int i = y * GRID_WIDTH + x;
+                hash = (hash << 1) | (cells[i] < cells[i + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Number of differing bits between two hashes; 0 means the frames look the same.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
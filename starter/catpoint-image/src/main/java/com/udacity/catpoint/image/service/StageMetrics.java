@@ -0,0 +1,100 @@
+package com.udacity.catpoint.image.service;
+
+/**
+ * Point in time counters for one stage of a {@link CascadeImageService}: how many frames reached
+ * it, how many it answered without passing them on, and how long it took.
+ *
+ * Frames classified one at a time and frames classified in a batch are timed separately, since
+ * a batch call only has a latency for the whole batch. Frame and hit counts include both.
+ */
+public final class StageMetrics {
+
+    private final String stage;
+    private final long frames;
+    private final long resolved;
+    private final long singleFrames;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long batches;
+    private final long batchNanos;
+
+    StageMetrics(String stage, long frames, long resolved, long singleFrames, long totalNanos, long maxNanos,
+                 long batches, long batchNanos) {
+        this.stage = stage;
+        this.frames = frames;
+        this.resolved = resolved;
+        this.singleFrames = singleFrames;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.batches = batches;
+        this.batchNanos = batchNanos;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * Frames that reached this stage, alone or in a batch.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Frames this stage answered itself.
+     */
+    public long getResolved() {
+        return resolved;
+    }
+
+    /**
+     * Fraction of the frames reaching this stage that it answered itself.
+     */
+    public double getHitRate() {
+        return frames == 0 ? 0 : (double) resolved / frames;
+    }
+
+    /**
+     * Mean latency of frames classified one at a time.
+     */
+    public long getMeanLatencyNanos() {
+        return singleFrames == 0 ? 0 : totalNanos / singleFrames;
+    }
+
+    /**
+     * Highest latency of a frame classified one at a time.
+     */
+    public long getMaxLatencyNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Batch calls made to this stage.
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Frames that reached this stage as part of a batch.
+     */
+    public long getBatchedFrames() {
+        return frames - singleFrames;
+    }
+
+    /**
+     * Mean latency of a whole batch call.
+     */
+    public long getMeanBatchLatencyNanos() {
+        return batches == 0 ? 0 : batchNanos / batches;
+    }
+
+    @Override
+    public String toString() {
+        return "StageMetrics{stage=" + stage + ", frames=" + frames + ", resolved=" + resolved
+                + ", meanLatencyNanos=" + getMeanLatencyNanos() + ", maxLatencyNanos=" + maxNanos
+                + ", batches=" + batches + ", batchedFrames=" + getBatchedFrames()
+                + ", meanBatchLatencyNanos=" + getMeanBatchLatencyNanos() + "}";
+    }
+}
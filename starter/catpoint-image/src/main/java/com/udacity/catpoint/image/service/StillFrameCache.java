@@ -0,0 +1,42 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The last detection result for one camera, handed back for frames its {@link MotionGate} sees
+ * no motion in. Shared by the image services that skip still frames.
+ */
+final class StillFrameCache {
+
+    private final MotionGate gate;
+    private DetectionResult lastResult;
+
+    StillFrameCache(MotionGate gate) {
+        this.gate = gate;
+    }
+
+    /**
+     * Feeds the frame to the gate.
+     * @return the last result if nothing moved, or null if the frame has to be detected
+     */
+    synchronized DetectionResult lookup(BufferedImage image) {
+        return gate.hasMotion(image) ? null : lastResult;
+    }
+
+    synchronized void store(DetectionResult result) {
+        lastResult = result;
+    }
+
+    /**
+     * Forgets the last result after detecting a moving frame failed. The gate has already taken
+     * that motion into its background, so the old result would otherwise be handed out for every
+     * still frame until something moves again.
+     */
+    synchronized void invalidate() {
+        lastResult = null;
+    }
+
+    MotionGate getGate() {
+        return gate;
+    }
+}
@@ -1,5 +1,7 @@
 package com.udacity.catpoint.service;
 
+import com.udacity.catpoint.image.service.DetectionResult;
+import com.udacity.catpoint.image.service.ImageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
@@ -11,13 +13,23 @@ import software.amazon.awssdk.services.rekognition.RekognitionClient;
 import software.amazon.awssdk.services.rekognition.model.DetectLabelsRequest;
 import software.amazon.awssdk.services.rekognition.model.DetectLabelsResponse;
 import software.amazon.awssdk.services.rekognition.model.Image;
+import software.amazon.awssdk.services.rekognition.model.Label;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +42,19 @@ public class AwsImageService implements ImageService {
     //aws recommendation is to maintain only a single instance of client objects
     private static RekognitionClient rekognitionClient;
 
+    //Rekognition needs nowhere near full camera resolution to find a cat
+    private static final int DEFAULT_MAX_DIMENSION = 1280;
+    private static final float DEFAULT_JPEG_QUALITY = 0.85f;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    //labels below this confidence are not returned; low, so callers can pick their own threshold
+    private static final float DEFAULT_MIN_CONFIDENCE = 10f;
+
+    private JpegEncoder encoder = new JpegEncoder(DEFAULT_MAX_DIMENSION, DEFAULT_JPEG_QUALITY, DEFAULT_MAX_IN_FLIGHT);
+    //cap on concurrent Rekognition calls from one batch scan
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private float minConfidence = DEFAULT_MIN_CONFIDENCE;
+    private ExecutorService batchExecutor;
+
     public AwsImageService() {
         Properties props = new Properties();
         try (InputStream is = getClass().getClassLoader().getResourceAsStream("config.properties")) {
@@ -42,6 +67,12 @@ public class AwsImageService implements ImageService {
         String awsId = props.getProperty("aws.id");
         String awsSecret = props.getProperty("aws.secret");
         String awsRegion = props.getProperty("aws.region");
+        minConfidence = Float.parseFloat(props.getProperty("aws.minConfidence", String.valueOf(DEFAULT_MIN_CONFIDENCE)));
+        maxInFlight = Integer.parseInt(props.getProperty("aws.maxInFlight", String.valueOf(DEFAULT_MAX_IN_FLIGHT)));
+        encoder = new JpegEncoder(
+                Integer.parseInt(props.getProperty("aws.image.maxDimension", String.valueOf(DEFAULT_MAX_DIMENSION))),
+                Float.parseFloat(props.getProperty("aws.image.quality", String.valueOf(DEFAULT_JPEG_QUALITY))),
+                maxInFlight);
 
         AwsCredentials awsCredentials = AwsBasicCredentials.create(awsId, awsSecret);
         rekognitionClient = RekognitionClient.builder()
@@ -50,19 +81,86 @@ public class AwsImageService implements ImageService {
                 .build();
     }
 
-    public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
-        Image awsImage = null;
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-            ImageIO.write(image, "jpg", os);
-            awsImage = Image.builder().bytes(SdkBytes.fromByteArray(os.toByteArray())).build();
+    /**
+     * Returns every label Rekognition reports at or above {@code aws.minConfidence}, with the time
+     * spent encoding the image and waiting for the response. A frame that cannot be encoded gives
+     * an empty result.
+     */
+    @Override
+    public DetectionResult detect(BufferedImage image) {
+        if (image == null) {
+            return DetectionResult.empty();
+        }
+        long start = System.nanoTime();
+        long[] encodedAt = new long[1];
+        DetectLabelsResponse response;
+        try {
+            //the request wraps the pooled buffer without copying; it is only reused after detectLabels returns
+            response = encoder.encode(image, jpeg -> {
+                encodedAt[0] = System.nanoTime();
+                Image awsImage = Image.builder().bytes(SdkBytes.fromByteBufferUnsafe(jpeg)).build();
+                return rekognitionClient.detectLabels(DetectLabelsRequest.builder().image(awsImage).minConfidence(minConfidence).build());
+            });
         } catch (IOException ioe) {
             log.error("Error building image byte array", ioe);
-            return false;
+            return DetectionResult.empty();
         }
-        DetectLabelsRequest detectLabelsRequest = DetectLabelsRequest.builder().image(awsImage).minConfidence(confidenceThreshhold).build();
-        DetectLabelsResponse response = rekognitionClient.detectLabels(detectLabelsRequest);
+        long respondedAt = System.nanoTime();
         logLabelsForFun(response);
-        return response.labels().stream().filter(l -> l.name().toLowerCase().contains("cat")).findFirst().isPresent();
+
+        Map<String, Float> labels = new LinkedHashMap<>();
+        for (Label label : response.labels()) {
+            labels.merge(label.name(), label.confidence(), Math::max);
+        }
+        Map<String, Duration> timings = new LinkedHashMap<>();
+        timings.put("encode", Duration.ofNanos(encodedAt[0] - start));
+        timings.put("request", Duration.ofNanos(respondedAt - encodedAt[0]));
+        return new DetectionResult(labels, timings);
+    }
+
+    /**
+     * Encodes and sends up to {@code aws.maxInFlight} frames at once, so a batch costs about as
+     * many round trips as its slowest frames rather than the sum of all of them.
+     */
+    @Override
+    public List<DetectionResult> detectAll(List<BufferedImage> images) {
+        if (images.size() < 2) {
+            return ImageService.super.detectAll(images);
+        }
+        ExecutorService executor = batchExecutor();
+        List<Future<DetectionResult>> scans = new ArrayList<>(images.size());
+        for (BufferedImage image : images) {
+            scans.add(executor.submit(() -> detect(image)));
+        }
+        List<DetectionResult> results = new ArrayList<>(images.size());
+        try {
+            for (Future<DetectionResult> scan : scans) {
+                results.add(scan.get());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            scans.forEach(scan -> scan.cancel(true));
+            throw new CancellationException("Interrupted while scanning images");
+        } catch (ExecutionException e) {
+            scans.forEach(scan -> scan.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private synchronized ExecutorService batchExecutor() {
+        if (batchExecutor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            batchExecutor = Executors.newFixedThreadPool(maxInFlight, task -> {
+                Thread thread = new Thread(task, "catpoint-aws-scan-" + threads.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return batchExecutor;
     }
 
     private void logLabelsForFun(DetectLabelsResponse response) {
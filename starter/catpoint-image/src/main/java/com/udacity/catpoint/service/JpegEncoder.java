@@ -0,0 +1,138 @@
+package com.udacity.catpoint.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Function;
+
+/**
+ * Encodes images to JPEG for upload with as few full-size allocations as possible. Each encoder
+ * slot keeps its JPEG writer, output buffer and downscaling canvas between scans; slots are
+ * pooled so concurrent scans each get their own.
+ *
+ * Images larger than {@code maxDimension} on their longer side are scaled down first, and images
+ * with alpha or unusual layouts are redrawn as plain RGB, which the JPEG writer needs anyway.
+ */
+final class JpegEncoder {
+
+    private static final int DEFAULT_MAX_POOLED = 4;
+    private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+
+    private final int maxDimension;
+    private final float quality;
+    //slots kept for reuse; more are created while more scans than that encode at once
+    private final int maxPooled;
+    private final Deque<Slot> pool = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Output stream that hands out its internal buffer instead of copying it.
+     */
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        private ExposedByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        private ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    private final class Slot {
+        private final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        private final ImageWriteParam param = writer.getDefaultWriteParam();
+        private final ExposedByteArrayOutputStream out = new ExposedByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        private BufferedImage canvas;
+
+        private Slot() {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+        }
+
+        private ByteBuffer encode(BufferedImage image) throws IOException {
+            out.reset();
+            //MemoryCacheImageOutputStream avoids the temp file ImageIO.createImageOutputStream may use
+            try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+                writer.setOutput(stream);
+                writer.write(null, new IIOImage(prepare(image), null, null), param);
+            } finally {
+                writer.setOutput(null);
+            }
+            return out.view();
+        }
+
+        private BufferedImage prepare(BufferedImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            double scale = Math.min(1, (double) maxDimension / Math.max(width, height));
+            int type = image.getType();
+            if (scale == 1 && (type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_INT_RGB
+                    || type == BufferedImage.TYPE_BYTE_GRAY)) {
+                return image;
+            }
+            int targetWidth = Math.max(1, (int) Math.round(width * scale));
+            int targetHeight = Math.max(1, (int) Math.round(height * scale));
+            if (canvas == null || canvas.getWidth() != targetWidth || canvas.getHeight() != targetHeight) {
+                canvas = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_3BYTE_BGR);
+            }
+            Graphics2D g = canvas.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+            } finally {
+                g.dispose();
+            }
+            return canvas;
+        }
+    }
+
+    /**
+     * @param maxDimension longest side, in pixels, of the encoded image
+     * @param quality      JPEG quality from 0 to 1
+     */
+    JpegEncoder(int maxDimension, float quality) {
+        this(maxDimension, quality, DEFAULT_MAX_POOLED);
+    }
+
+    /**
+     * @param maxPooled encoder slots kept between scans; match it to the number of concurrent scans
+     */
+    JpegEncoder(int maxDimension, float quality, int maxPooled) {
+        if (maxDimension <= 0 || quality < 0 || quality > 1 || maxPooled < 0) {
+            throw new IllegalArgumentException("maxDimension must be positive, quality between 0 and 1 and maxPooled not negative");
+        }
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Encodes the image and passes the JPEG bytes to {@code use}. The buffer is only valid until
+     * {@code use} returns; it is then reused for another image.
+     */
+    <T> T encode(BufferedImage image, Function<ByteBuffer, T> use) throws IOException {
+        Slot slot = pool.pollFirst();
+        if (slot == null) {
+            slot = new Slot();
+        }
+        try {
+            return use.apply(slot.encode(image));
+        } finally {
+            if (pool.size() < maxPooled) {
+                pool.offerFirst(slot);
+            } else {
+                slot.writer.dispose();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 module com.udacity.catpoint.image {
     requires transitive java.desktop;
     exports com.udacity.catpoint.image.service;
+    exports com.udacity.catpoint.image.feed;
 }
 
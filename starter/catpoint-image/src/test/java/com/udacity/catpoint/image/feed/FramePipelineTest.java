@@ -0,0 +1,221 @@
+package com.udacity.catpoint.image.feed;
+
+import com.udacity.catpoint.image.service.DetectionResult;
+import com.udacity.catpoint.image.service.ImageService;
+import com.udacity.catpoint.image.service.MotionGate;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FramePipelineTest {
+
+    /**
+     * Reports the red level of the frame's centre as the cat confidence.
+     */
+    private static final ImageService RED_IS_CAT = image ->
+            DetectionResult.cat((image.getRGB(image.getWidth() / 2, image.getHeight() / 2) >> 16) & 0xFF,
+                    Map.of());
+
+    private static MjpegFrameSource stream(Color... colors) throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (Color color : colors) {
+            stream.write(MjpegFrameSourceTest.jpeg(color));
+        }
+        return new MjpegFrameSource(new ByteArrayInputStream(stream.toByteArray()), "cam", 0);
+    }
+
+    @Test
+    public void stillFrames_stopAtGate() throws Exception {
+        List<FrameResult> results = new CopyOnWriteArrayList<>();
+        FramePipeline pipeline = new FramePipeline(stream(Color.BLACK, Color.BLACK, Color.RED, Color.RED),
+                new MotionGate(), RED_IS_CAT, PipelineOptions.queued(8, DropPolicy.BLOCK), results::add);
+        pipeline.start();
+        assertTrue(pipeline.awaitCompletion(10, TimeUnit.SECONDS));
+
+        assertEquals(2, results.size());
+        assertEquals(1, results.get(0).getSequence());
+        assertEquals(3, results.get(1).getSequence());
+        assertTrue(results.get(1).getDetection().containsCat(50));
+
+        PipelineMetrics metrics = pipeline.getMetrics();
+        assertEquals(4, metrics.getFramesRead());
+        assertEquals(2, metrics.getResults());
+        FeedStageMetrics gate = metrics.getStages().get(1);
+        assertEquals("gate", gate.getStage());
+        assertEquals(4, gate.getProcessed());
+        assertEquals(2, gate.getFiltered());
+        assertEquals(0, gate.getDropped());
+    }
+
+    @Test
+    public void slowDetector_dropsOldFrames() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ImageService blocked = image -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return RED_IS_CAT.detect(image);
+        };
+        Color[] colors = new Color[20];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = new Color(i * 12, 0, 0);
+        }
+        List<FrameResult> results = new CopyOnWriteArrayList<>();
+        FramePipeline pipeline = new FramePipeline(stream(colors), null, blocked,
+                PipelineOptions.latestFrameWins(), results::add);
+        pipeline.start();
+        while (pipeline.getMetrics().getStages().get(0).getProcessed() < 5
+                && pipeline.getMetrics().getFramesRead() < colors.length) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(100);
+        release.countDown();
+        assertTrue(pipeline.awaitCompletion(10, TimeUnit.SECONDS));
+
+        long dropped = pipeline.getMetrics().getStages().stream().mapToLong(FeedStageMetrics::getDropped).sum();
+        assertEquals(colors.length, results.size() + dropped);
+        assertTrue(dropped > 0);
+        assertEquals(colors.length, results.get(results.size() - 1).getSequence());
+    }
+
+    @Test
+    public void undecodableFrames_areCountedAndSkipped() throws Exception {
+        FrameSource source = new FrameSource() {
+            private int next;
+
+            @Override
+            public RawFrame next() throws IOException {
+                switch (next++) {
+                    case 0:
+                        return new RawFrame("notes.jpg", 1, new byte[]{1, 2, 3}, System.nanoTime());
+                    case 1:
+                        return new RawFrame("cat.jpg", 2, MjpegFrameSourceTest.jpeg(Color.RED), System.nanoTime());
+                    default:
+                        return null;
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        List<FrameResult> results = new CopyOnWriteArrayList<>();
+        FramePipeline pipeline = new FramePipeline(source, null, RED_IS_CAT,
+                PipelineOptions.queued(4, DropPolicy.BLOCK), results::add);
+        pipeline.start();
+        assertTrue(pipeline.awaitCompletion(10, TimeUnit.SECONDS));
+
+        assertEquals(1, results.size());
+        assertEquals("cat.jpg", results.get(0).getSource());
+        assertEquals(1, pipeline.getMetrics().getStages().get(0).getFailed());
+    }
+
+    @Test
+    public void directorySource_feedsNewFiles() throws Exception {
+        Path directory = Files.createTempDirectory("catpoint-feed");
+        Files.write(directory.resolve("old.jpg"), MjpegFrameSourceTest.jpeg(Color.BLUE));
+        CountDownLatch detected = new CountDownLatch(1);
+        List<FrameResult> results = new CopyOnWriteArrayList<>();
+        FramePipeline pipeline = new FramePipeline(new DirectoryFrameSource(directory), new MotionGate(), RED_IS_CAT,
+                PipelineOptions.latestFrameWins(), result -> {
+                    results.add(result);
+                    detected.countDown();
+                });
+        pipeline.start();
+        try {
+            Files.write(directory.resolve("notes.txt"), new byte[]{1});
+            Path snapshot = directory.resolve("snapshot.tmp");
+            Files.write(snapshot, MjpegFrameSourceTest.jpeg(Color.RED));
+            Files.move(snapshot, directory.resolve("snapshot.jpg"));
+
+            assertTrue(detected.await(10, TimeUnit.SECONDS));
+            assertEquals("snapshot.jpg", results.get(0).getSource());
+            assertTrue(results.get(0).getDetection().containsCat(50));
+        } finally {
+            pipeline.close();
+        }
+        assertEquals(1, pipeline.getMetrics().getFramesRead());
+    }
+
+    /**
+     * Source that plays the given frames, throwing an IOException wherever a frame is null.
+     */
+    private static FrameSource scripted(List<RawFrame> frames) {
+        return new FrameSource() {
+            private int next;
+
+            @Override
+            public RawFrame next() throws IOException {
+                if (next == frames.size()) {
+                    return null;
+                }
+                RawFrame frame = frames.get(next++);
+                if (frame == null) {
+                    throw new IOException("camera hiccup");
+                }
+                return frame;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static RawFrame red(long sequence) throws Exception {
+        return new RawFrame("cam", sequence, MjpegFrameSourceTest.jpeg(Color.RED), System.nanoTime());
+    }
+
+    @Test
+    public void failingConsumer_doesNotStopDelivery() throws Exception {
+        List<FrameResult> results = new CopyOnWriteArrayList<>();
+        FramePipeline pipeline = new FramePipeline(scripted(List.of(red(1), red(2), red(3))), null, RED_IS_CAT,
+                PipelineOptions.queued(4, DropPolicy.BLOCK), result -> {
+                    if (result.getSequence() == 1) {
+                        throw new IllegalStateException("subscriber bug");
+                    }
+                    results.add(result);
+                });
+        pipeline.start();
+        assertTrue(pipeline.awaitCompletion(10, TimeUnit.SECONDS));
+
+        assertEquals(2, results.size());
+        assertEquals(1, pipeline.getMetrics().getDeliveryErrors());
+    }
+
+    @Test
+    public void readErrors_areSkippedUntilSourceIsGone() throws Exception {
+        List<RawFrame> frames = new ArrayList<>(Arrays.asList(red(1), null, red(2)));
+        for (int i = 0; i < 10; i++) {
+            frames.add(null);
+        }
+        frames.add(red(3));
+        List<FrameResult> results = new CopyOnWriteArrayList<>();
+        FramePipeline pipeline = new FramePipeline(scripted(frames), null, RED_IS_CAT,
+                PipelineOptions.queued(4, DropPolicy.BLOCK), results::add);
+        pipeline.start();
+        assertTrue(pipeline.awaitCompletion(10, TimeUnit.SECONDS));
+
+        // one hiccup is skipped; five failures in a row end the feed cleanly
+        assertEquals(2, results.size());
+        PipelineMetrics metrics = pipeline.getMetrics();
+        assertEquals(2, metrics.getFramesRead());
+        assertEquals(6, metrics.getReadErrors());
+    }
+}
@@ -0,0 +1,82 @@
+package com.udacity.catpoint.image.feed;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MjpegFrameSourceTest {
+
+    static byte[] jpeg(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 64, 48);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Inserts an APP1 segment holding a complete thumbnail JPEG, end marker included, right after
+     * the start of image marker.
+     */
+    private static byte[] withThumbnail(byte[] jpeg, byte[] thumbnail) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        int length = thumbnail.length + 2;
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length);
+        out.write(thumbnail, 0, thumbnail.length);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void splitsMultipartStream_intoDecodableFrames() throws Exception {
+        byte[] red = jpeg(Color.RED);
+        byte[] blue = withThumbnail(jpeg(Color.BLUE), jpeg(Color.GREEN));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (byte[] frame : new byte[][]{red, blue}) {
+            stream.write(("--frame\r\nContent-Type: image/jpeg\r\nContent-Length: " + frame.length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            stream.write(frame);
+            stream.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+
+        try (MjpegFrameSource source = new MjpegFrameSource(new ByteArrayInputStream(stream.toByteArray()), "cam", 0)) {
+            RawFrame first = source.next();
+            RawFrame second = source.next();
+            assertNull(source.next());
+
+            assertArrayEquals(red, first.getData());
+            assertArrayEquals(blue, second.getData());
+            assertEquals(2, second.getSequence());
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(second.getData()));
+            assertTrue((decoded.getRGB(32, 24) & 0xFF) > 200);
+        }
+    }
+
+    @Test
+    public void truncatedLastFrame_endsSource() throws Exception {
+        byte[] frame = jpeg(Color.RED);
+        byte[] stream = new byte[frame.length + frame.length / 2];
+        System.arraycopy(frame, 0, stream, 0, frame.length);
+        System.arraycopy(frame, 0, stream, frame.length, frame.length / 2);
+
+        MjpegFrameSource source = new MjpegFrameSource(new ByteArrayInputStream(stream), "cam", 0);
+        assertArrayEquals(frame, source.next().getData());
+        assertThrows(IOException.class, source::next);
+    }
+}
@@ -0,0 +1,111 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingImageServiceTest {
+
+    private static class CountingImageService implements ImageService {
+        int calls = 0;
+        int batchSize = 0;
+
+        @Override
+        public DetectionResult detect(BufferedImage image) {
+            calls++;
+            return DetectionResult.cat(70, Map.of());
+        }
+
+        @Override
+        public List<DetectionResult> detectAll(List<BufferedImage> images) {
+            batchSize = images.size();
+            return ImageService.super.detectAll(images);
+        }
+    }
+
+    private static BufferedImage gradient(int width, int height, boolean flipped) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = (x * 255 / width + y * 64 / height) & 0xFF;
+                if (flipped) {
+                    v = 255 - v;
+                }
+                image.setRGB(x, y, new Color(v, v, v).getRGB());
+            }
+        }
+        return image;
+    }
+
+    @Test
+    public void dHash_isStableAcrossScaleAndSmallChanges() {
+        BufferedImage frame = gradient(320, 240, false);
+        BufferedImage smaller = gradient(160, 120, false);
+        BufferedImage noisy = gradient(320, 240, false);
+        Graphics2D g = noisy.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(10, 10, 4, 4);
+        g.dispose();
+
+        long hash = PerceptualHash.dHash(frame);
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.dHash(smaller)) <= 2);
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.dHash(noisy)) <= 2);
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.dHash(gradient(320, 240, true))) > 32);
+    }
+
+    @Test
+    public void similarFrames_reuseResult() {
+        CountingImageService delegate = new CountingImageService();
+        CachingImageService service = new CachingImageService(delegate);
+
+        assertTrue(service.imageContainsCat(gradient(320, 240, false), 50f));
+        assertTrue(service.imageContainsCat(gradient(320, 240, false), 50f));
+        assertTrue(service.imageContainsCat(gradient(160, 120, false), 50f));
+        assertTrue(service.imageContainsCat(gradient(320, 240, true), 50f));
+        //the cached result answers any threshold
+        assertFalse(service.imageContainsCat(gradient(320, 240, false), 80f));
+
+        assertEquals(2, delegate.calls);
+        assertEquals(3, service.getHits());
+        assertEquals(2, service.getMisses());
+    }
+
+    @Test
+    public void expiredAndEvictedEntries_areRescanned() throws InterruptedException {
+        CountingImageService delegate = new CountingImageService();
+        CachingImageService service = new CachingImageService(delegate, 1, Duration.ofMillis(20), 0);
+
+        service.imageContainsCat(gradient(64, 64, false), 50f);
+        service.imageContainsCat(gradient(64, 64, true), 50f);
+        assertEquals(1, service.size());
+        assertEquals(1, service.getEvictions());
+
+        service.imageContainsCat(gradient(64, 64, true), 50f);
+        assertEquals(2, delegate.calls);
+        Thread.sleep(40);
+        service.imageContainsCat(gradient(64, 64, true), 50f);
+        assertEquals(3, delegate.calls);
+    }
+
+    @Test
+    public void batchScan_forwardsOnlyMisses() {
+        CountingImageService delegate = new CountingImageService();
+        CachingImageService service = new CachingImageService(delegate);
+        service.imageContainsCat(gradient(320, 240, false), 50f);
+
+        List<Boolean> verdicts = service.imagesContainCat(
+                List.of(gradient(320, 240, false), gradient(320, 240, true), gradient(160, 120, false)), 50f);
+
+        assertEquals(List.of(true, true, true), verdicts);
+        assertEquals(1, delegate.batchSize);
+        assertEquals(2, delegate.calls);
+        assertEquals(2, service.getHits());
+    }
+}
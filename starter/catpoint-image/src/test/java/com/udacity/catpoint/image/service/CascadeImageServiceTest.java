@@ -0,0 +1,145 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CascadeImageServiceTest {
+
+    /**
+     * Reads the local confidence from the frame's top-left pixel, so each test frame decides its own stage.
+     */
+    private static final ImageService LOCAL = image ->
+            DetectionResult.cat(image.getRGB(0, 0) & 0xFF, Map.of("classify", Duration.ofNanos(10)));
+
+    private static class CountingBackend implements ImageService {
+        int calls = 0;
+        int batchSize = 0;
+
+        @Override
+        public DetectionResult detect(BufferedImage image) {
+            calls++;
+            return new DetectionResult(Map.of("Cat", 99f, "Sofa", 80f), Map.of("request", Duration.ofNanos(100)));
+        }
+
+        @Override
+        public List<DetectionResult> detectAll(List<BufferedImage> images) {
+            batchSize = images.size();
+            return ImageService.super.detectAll(images);
+        }
+    }
+
+    private static BufferedImage frame(int localConfidence, int scene) {
+        BufferedImage image = new BufferedImage(160, 90, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(scene * 50 % 256, 80, 120));
+        g.fillRect(0, 0, 160, 90);
+        g.dispose();
+        image.setRGB(0, 0, localConfidence);
+        return image;
+    }
+
+    @Test
+    public void onlyUncertainFrames_reachBackend() {
+        CountingBackend backend = new CountingBackend();
+        CascadeImageService service = new CascadeImageService(null, LOCAL, backend, 20f, 80f);
+
+        assertFalse(service.imageContainsCat(frame(5, 0), 50f));
+        assertTrue(service.imageContainsCat(frame(95, 0), 50f));
+        assertEquals(0, backend.calls);
+
+        DetectionResult escalated = service.detect(frame(50, 0));
+        assertEquals(1, backend.calls);
+        assertEquals(80f, escalated.getConfidence("sofa"));
+        assertEquals(List.of("local.classify", "backend.request"), new ArrayList<>(escalated.getTimings().keySet()));
+
+        List<StageMetrics> metrics = service.getMetrics();
+        assertEquals(2, metrics.size());
+        assertEquals(3, metrics.get(0).getFrames());
+        assertEquals(2, metrics.get(0).getResolved());
+        assertEquals(1, metrics.get(1).getFrames());
+    }
+
+    @Test
+    public void stillFrames_stopAtGate() {
+        CountingBackend backend = new CountingBackend();
+        CascadeImageService service = new CascadeImageService(LOCAL, backend);
+
+        assertTrue(service.imageContainsCat(frame(50, 1), 50f));
+        assertTrue(service.imageContainsCat(frame(50, 1), 50f));
+        assertFalse(service.imageContainsCat(frame(5, 3), 50f));
+
+        assertEquals(1, backend.calls);
+        StageMetrics gate = service.getMetrics().get(0);
+        assertEquals("gate", gate.getStage());
+        assertEquals(3, gate.getFrames());
+        assertEquals(1, gate.getResolved());
+        assertEquals(2, service.getMetrics().get(1).getFrames());
+    }
+
+    @Test
+    public void failedBackend_doesNotLeaveStaleResult() {
+        CountingBackend backend = new CountingBackend();
+        boolean[] fail = {false};
+        ImageService flaky = image -> {
+            if (fail[0]) {
+                throw new IllegalStateException("backend unavailable");
+            }
+            return backend.detect(image);
+        };
+        CascadeImageService service = new CascadeImageService(LOCAL, flaky);
+
+        assertFalse(service.imageContainsCat(frame(5, 1), 50f));
+        fail[0] = true;
+        assertThrows(IllegalStateException.class, () -> service.detect(frame(50, 3)));
+        fail[0] = false;
+
+        // still frame after the failed one is classified again rather than answered with "no cat"
+        assertTrue(service.imageContainsCat(frame(50, 3), 50f));
+        assertEquals(1, backend.calls);
+        assertEquals(0, service.getMetrics().get(0).getResolved());
+    }
+
+    @Test
+    public void batch_escalatesUncertainFramesTogether() {
+        CountingBackend backend = new CountingBackend();
+        CascadeImageService service = new CascadeImageService(null, LOCAL, backend, 20f, 80f);
+
+        List<Boolean> verdicts = service.imagesContainCat(
+                List.of(frame(50, 0), frame(5, 1), frame(60, 2), frame(90, 3)), 50f);
+
+        assertEquals(List.of(true, false, true, true), verdicts);
+        assertEquals(2, backend.batchSize);
+        StageMetrics local = service.getMetrics().get(0);
+        assertEquals(0.5, local.getHitRate());
+        assertEquals(1, local.getBatches());
+        assertEquals(4, local.getBatchedFrames());
+        assertEquals(0, local.getMeanLatencyNanos());
+        assertEquals(2, service.getMetrics().get(1).getBatchedFrames());
+    }
+
+    @Test
+    public void batch_isNotGated() {
+        CountingBackend backend = new CountingBackend();
+        CascadeImageService service = new CascadeImageService(LOCAL, backend);
+        // the same scene from two cameras, one showing a cat
+        assertFalse(service.imageContainsCat(frame(5, 1), 50f));
+
+        List<Boolean> verdicts = service.imagesContainCat(List.of(frame(5, 1), frame(95, 1), frame(5, 1)), 50f);
+
+        assertEquals(List.of(false, true, false), verdicts);
+        assertEquals(1, service.getMetrics().get(0).getFrames());
+        assertEquals(4, service.getMetrics().get(1).getFrames());
+        // the single camera path still sees its own still scene
+        assertFalse(service.imageContainsCat(frame(5, 1), 50f));
+        assertEquals(1, service.getMetrics().get(0).getResolved());
+    }
+}
@@ -0,0 +1,90 @@
+package com.udacity.catpoint.image.service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link LocalImageService} throughput, first on one thread and then on one thread per
+ * core, and prints frames per second per core. Not a unit test; run it by hand:
+ *
+ * <pre>java -cp ... com.udacity.catpoint.image.service.LocalImageServiceBenchmark [image files]</pre>
+ *
+ * Without arguments it scores synthetic 1280x720 frames.
+ */
+public class LocalImageServiceBenchmark {
+
+    private static final long WARMUP_NANOS = 3_000_000_000L;
+    private static final long MEASURE_NANOS = 5_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        List<BufferedImage> frames = args.length > 0 ? load(args) : synthetic(8);
+        LocalImageService service = new LocalImageService();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        run(service, frames, 1, WARMUP_NANOS);
+        double single = run(service, frames, 1, MEASURE_NANOS);
+        double all = run(service, frames, cores, MEASURE_NANOS);
+
+        System.out.printf("1 thread:   %.1f frames/s%n", single);
+        System.out.printf("%d threads: %.1f frames/s, %.1f frames/s per core%n", cores, all, all / cores);
+    }
+
+    private static double run(LocalImageService service, List<BufferedImage> frames, int threads, long nanos)
+            throws InterruptedException {
+        AtomicLong scanned = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                long count = 0;
+                while (System.nanoTime() - start < nanos) {
+                    service.imageContainsCat(frames.get((int) ((count + offset) % frames.size())), 50f);
+                    count++;
+                }
+                scanned.addAndGet(count);
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        return scanned.get() * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static List<BufferedImage> load(String[] paths) throws IOException {
+        List<BufferedImage> frames = new ArrayList<>();
+        for (String path : paths) {
+            BufferedImage image = ImageIO.read(new File(path));
+            if (image == null) {
+                throw new IOException("Not an image: " + path);
+            }
+            frames.add(image);
+        }
+        return frames;
+    }
+
+    private static List<BufferedImage> synthetic(int count) {
+        Random random = new Random(1);
+        List<BufferedImage> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(1280, 720, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            for (int shape = 0; shape < 20; shape++) {
+                g.setColor(new Color(random.nextInt(0x1000000)));
+                g.fillOval(random.nextInt(1280), random.nextInt(720), 50 + random.nextInt(400), 50 + random.nextInt(300));
+            }
+            g.dispose();
+            frames.add(image);
+        }
+        return frames;
+    }
+}
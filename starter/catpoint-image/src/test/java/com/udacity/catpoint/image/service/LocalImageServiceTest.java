@@ -0,0 +1,170 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class LocalImageServiceTest {
+
+    private static BufferedImage frame(int seed) {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(seed * 40 % 256, seed * 90 % 256, seed * 160 % 256));
+        g.fillRect(0, 0, 320, 240);
+        g.setColor(new Color(seed * 70 % 256, 120, 200));
+        g.fillOval(seed * 20, seed * 10, 120, 90);
+        g.dispose();
+        return image;
+    }
+
+    private static BufferedImage copy(BufferedImage source, BufferedImage target) {
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                target.setRGB(x, y, source.getRGB(x, y));
+            }
+        }
+        return target;
+    }
+
+    @Test
+    public void bundledModel_loadsAndScoresInRange() {
+        LocalImageService service = new LocalImageService();
+
+        float confidence = service.catConfidence(frame(1));
+        assertTrue(confidence >= 0 && confidence <= 100);
+        assertFalse(service.imageContainsCat(null, 50f));
+        assertTrue(service.imageContainsCat(frame(1), 0f));
+    }
+
+    @Test
+    public void detect_reportsCatLabelAndStageTimings() {
+        LocalImageService service = new LocalImageService();
+
+        DetectionResult result = service.detect(frame(2));
+        assertEquals(Set.of(DetectionResult.CAT), result.getLabels().keySet());
+        assertEquals(service.catConfidence(frame(2)), result.getCatConfidence());
+        assertEquals(List.of("features", "classify"), new ArrayList<>(result.getTimings().keySet()));
+        assertTrue(result.getTotalTime().toNanos() > 0);
+        assertTrue(service.detect(null).getLabels().isEmpty());
+        assertFalse(service.detect(null).containsCat(0f));
+    }
+
+    @Test
+    public void concurrentScans_matchSequentialScans() throws Exception {
+        LocalImageService service = new LocalImageService();
+        List<BufferedImage> frames = new ArrayList<>();
+        List<Float> expected = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            frames.add(frame(i));
+            expected.add(service.catConfidence(frames.get(i)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Float>> results = new ArrayList<>();
+            for (int round = 0; round < 10; round++) {
+                for (BufferedImage image : frames) {
+                    results.add(pool.submit(() -> service.catConfidence(image)));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(expected.get(i % frames.size()), results.get(i).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void batchScan_returnsVerdictsInOrder() {
+        LocalImageService service = new LocalImageService();
+        //a threshold in the middle of the scores, so the verdicts are mixed
+        float threshold = service.catConfidence(frame(5));
+        List<BufferedImage> frames = new ArrayList<>();
+        List<Boolean> expected = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            frames.add(frame(i));
+            expected.add(service.catConfidence(frames.get(i)) >= threshold);
+        }
+
+        assertEquals(expected, service.imagesContainCat(frames, threshold));
+    }
+
+    @Test
+    public void linearModel_parsesTextFormat() throws IOException {
+        String text = "# comment\nbias -1\n1 2\n 3\n";
+        LinearModel model = LinearModel.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, model.getFeatureCount());
+        assertEquals(50f, model.confidence(new float[]{1, 0, 0}), 1e-4f);
+        assertThrows(IllegalArgumentException.class, () -> new LocalImageService(model));
+        assertThrows(IOException.class, () -> LinearModel.load(new ByteArrayInputStream("1 2 3".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void features_sameForEveryImageLayout() {
+        BufferedImage source = frame(3);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        float[] expected = new CatFeatures().extract(source).clone();
+
+        //interleaved RGB bytes have no predefined type, so they go through getRGB
+        WritableRaster rgbRaster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, width, height, 3, null);
+        ColorModel rgbModel = new BufferedImage(1, 1, BufferedImage.TYPE_3BYTE_BGR).getColorModel();
+        BufferedImage custom = new BufferedImage(rgbModel, rgbRaster, false, null);
+        assertEquals(BufferedImage.TYPE_CUSTOM, custom.getType());
+
+        BufferedImage parent = new BufferedImage(width + 30, height + 20, BufferedImage.TYPE_3BYTE_BGR);
+        copy(source, parent.getSubimage(30, 20, width, height));
+
+        List<BufferedImage> layouts = List.of(
+                copy(source, new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR)),
+                copy(source, new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR)),
+                copy(source, new BufferedImage(width, height, BufferedImage.TYPE_INT_BGR)),
+                copy(source, new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)),
+                copy(source, custom),
+                parent.getSubimage(30, 20, width, height));
+        CatFeatures features = new CatFeatures();
+        for (BufferedImage image : layouts) {
+            assertArrayEquals(expected, features.extract(image));
+        }
+    }
+
+    @Test
+    public void featureExtraction_doesNotAllocateOnByteImage() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        BufferedImage image = copy(frame(4), new BufferedImage(320, 240, BufferedImage.TYPE_3BYTE_BGR));
+        LocalImageService service = new LocalImageService();
+        service.catConfidence(image);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 50; i++) {
+            service.catConfidence(image);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        //sampling through getRGB allocated about 16k temporary arrays per scan
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,112 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MotionGateTest {
+
+    private static BufferedImage scene(int type, boolean catInView) {
+        BufferedImage image = new BufferedImage(640, 360, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(90, 110, 70));
+        g.fillRect(0, 0, 640, 360);
+        g.setColor(new Color(200, 180, 150));
+        g.fillRect(40, 40, 120, 80);
+        if (catInView) {
+            g.setColor(new Color(240, 140, 30));
+            g.fillRect(300, 160, 120, 90);
+        }
+        g.dispose();
+        return image;
+    }
+
+    private static IntStream imageTypes() {
+        //the last two have no direct raster path and use getRGB
+        return IntStream.of(BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+                BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY,
+                BufferedImage.TYPE_USHORT_565_RGB, BufferedImage.TYPE_BYTE_INDEXED);
+    }
+
+    @ParameterizedTest
+    @MethodSource("imageTypes")
+    public void motion_detectedOnlyWhenSceneChanges(int type) {
+        MotionGate gate = new MotionGate();
+
+        assertTrue(gate.hasMotion(scene(type, false)));
+        assertFalse(gate.hasMotion(scene(type, false)));
+        assertEquals(0.0, gate.getLastChangedFraction());
+        assertTrue(gate.hasMotion(scene(type, true)));
+        assertTrue(gate.getLastChangedFraction() > 0.03);
+    }
+
+    @Test
+    public void subImage_readsItsOwnRegion() {
+        BufferedImage parent = new BufferedImage(800, 600, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = parent.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 400, 600);
+        g.dispose();
+        MotionGate gate = new MotionGate();
+
+        assertTrue(gate.hasMotion(parent.getSubimage(400, 0, 400, 300)));
+        //same size, but this region is white where the first was black
+        assertTrue(gate.hasMotion(parent.getSubimage(0, 0, 400, 300)));
+        assertEquals(1.0, gate.getLastChangedFraction());
+        assertFalse(gate.hasMotion(parent.getSubimage(0, 300, 400, 300)));
+    }
+
+    @Test
+    public void stillFrames_reuseLastResult() {
+        int[] calls = {0};
+        ImageService detector = image -> {
+            calls[0]++;
+            boolean cat = image.getRGB(360, 200) != scene(BufferedImage.TYPE_INT_RGB, false).getRGB(360, 200);
+            return cat ? DetectionResult.cat(90, Map.of()) : DetectionResult.empty();
+        };
+        MotionGatedImageService service = new MotionGatedImageService(detector);
+
+        assertFalse(service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, false), 50f));
+        assertFalse(service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, false), 50f));
+        assertTrue(service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, true), 50f));
+        assertTrue(service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, true), 50f));
+        assertFalse(service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, true), 95f));
+
+        assertEquals(2, calls[0]);
+        assertEquals(2, service.getScanned());
+        assertEquals(3, service.getSkipped());
+    }
+
+    @Test
+    public void failedScan_isNotReplacedByStaleResult() {
+        boolean[] fail = {false};
+        ImageService detector = image -> {
+            if (fail[0]) {
+                throw new IllegalStateException("backend unavailable");
+            }
+            boolean cat = image.getRGB(360, 200) != scene(BufferedImage.TYPE_INT_RGB, false).getRGB(360, 200);
+            return cat ? DetectionResult.cat(90, Map.of()) : DetectionResult.empty();
+        };
+        MotionGatedImageService service = new MotionGatedImageService(detector);
+
+        assertFalse(service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, false), 50f));
+        fail[0] = true;
+        assertThrows(IllegalStateException.class,
+                () -> service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, true), 50f));
+        fail[0] = false;
+
+        //the gate has absorbed the cat walking in, so this frame is still, but it must be scanned
+        assertTrue(service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, true), 50f));
+        assertTrue(service.imageContainsCat(scene(BufferedImage.TYPE_INT_RGB, true), 50f));
+        assertEquals(3, service.getScanned());
+        assertEquals(1, service.getSkipped());
+    }
+}
@@ -0,0 +1,66 @@
+package com.udacity.catpoint.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JpegEncoderTest {
+
+    private static BufferedImage frame(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width / 2, height);
+        g.dispose();
+        return image;
+    }
+
+    private static BufferedImage decode(ByteBuffer jpeg) {
+        byte[] bytes = new byte[jpeg.remaining()];
+        jpeg.duplicate().get(bytes);
+        try {
+            return ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void largeImages_areScaledDown() throws IOException {
+        JpegEncoder encoder = new JpegEncoder(640, 0.8f);
+
+        BufferedImage decoded = encoder.encode(frame(1920, 1080, BufferedImage.TYPE_INT_RGB), JpegEncoderTest::decode);
+        assertEquals(640, decoded.getWidth());
+        assertEquals(360, decoded.getHeight());
+
+        decoded = encoder.encode(frame(320, 240, BufferedImage.TYPE_INT_RGB), JpegEncoderTest::decode);
+        assertEquals(320, decoded.getWidth());
+    }
+
+    @Test
+    public void imagesWithAlpha_areEncoded() throws IOException {
+        JpegEncoder encoder = new JpegEncoder(1280, 0.8f);
+
+        BufferedImage decoded = encoder.encode(frame(200, 100, BufferedImage.TYPE_INT_ARGB), JpegEncoderTest::decode);
+        assertEquals(200, decoded.getWidth());
+        Color left = new Color(decoded.getRGB(50, 50));
+        assertTrue(left.getRed() > 200 && left.getBlue() < 60);
+    }
+
+    @Test
+    public void buffer_isReusedBetweenScans() throws IOException {
+        JpegEncoder encoder = new JpegEncoder(1280, 0.8f);
+
+        byte[] first = encoder.encode(frame(320, 240, BufferedImage.TYPE_3BYTE_BGR), ByteBuffer::array);
+        byte[] second = encoder.encode(frame(640, 480, BufferedImage.TYPE_3BYTE_BGR), ByteBuffer::array);
+        assertSame(first, second);
+    }
+}
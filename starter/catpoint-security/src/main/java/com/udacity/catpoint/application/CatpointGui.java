@@ -1,32 +1,81 @@
 package com.udacity.catpoint.application;
 
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import javax.swing.BoxLayout;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import com.udacity.catpoint.data.PretendDatabaseSecurityRepositoryImpl;
-import com.udacity.catpoint.data.SecurityRepository;
+import com.udacity.catpoint.data.WriteBehindSecurityRepository;
+import com.udacity.catpoint.image.feed.DirectoryFrameSource;
+import com.udacity.catpoint.image.feed.FramePipeline;
+import com.udacity.catpoint.image.feed.FrameSource;
+import com.udacity.catpoint.image.feed.MjpegFrameSource;
+import com.udacity.catpoint.image.feed.PipelineOptions;
+import com.udacity.catpoint.image.service.CachingImageService;
 import com.udacity.catpoint.image.service.FakeImageService;
 import com.udacity.catpoint.image.service.ImageService;
+import com.udacity.catpoint.image.service.LocalImageService;
+import com.udacity.catpoint.image.service.MotionGate;
+import com.udacity.catpoint.image.service.MotionGatedImageService;
 import com.udacity.catpoint.service.SecurityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This is the primary JFrame for the application that contains all the top-level JPanels.
+ *
+ * Images are scanned by {@link FakeImageService} unless {@code catpoint.detector} is set to
+ * {@code local}, which selects the offline {@link LocalImageService} model. Setting
+ * {@code catpoint.feed} to a directory or an MJPEG file also feeds that camera into the security
+ * service; {@code catpoint.feed.fps} sets the rate a file is played at.
  */
 public class CatpointGui extends JFrame {
-    private SecurityRepository securityRepository = new PretendDatabaseSecurityRepositoryImpl();
-    private ImageService imageService = new FakeImageService();
+    private static final Logger log = LoggerFactory.getLogger(CatpointGui.class);
+
+    //persist off the event dispatch thread; flushed when the window closes
+    private WriteBehindSecurityRepository securityRepository =
+            new WriteBehindSecurityRepository(new PretendDatabaseSecurityRepositoryImpl());
+    private ImageService detector = createDetector();
+    private ImageService imageService = new MotionGatedImageService(new CachingImageService(detector));
     private SecurityService securityService = new SecurityService(securityRepository, imageService);
     private DisplayPanel displayPanel = new DisplayPanel(securityService);
     private ControlPanel controlPanel = new ControlPanel(securityService);
     private SensorPanel sensorPanel = new SensorPanel(securityService);
     private ImagePanel imagePanel = new ImagePanel(securityService);
+    private FramePipeline cameraFeed = startCameraFeed();
 
     public CatpointGui() {
         setLocation(100, 100);
         setSize(600, 850);
         setTitle("Very Secure App");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (cameraFeed != null) {
+                    try {
+                        cameraFeed.close();
+                    } catch (IOException ex) {
+                        log.warn("Unable to close camera feed", ex);
+                    }
+                    log.info("Camera feed: {}", cameraFeed.getMetrics());
+                }
+                securityService.close();
+                try {
+                    securityRepository.close();
+                } catch (IOException | RuntimeException ex) {
+                    log.error("Unable to persist security state on exit", ex);
+                }
+            }
+        });
 
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
@@ -38,4 +87,42 @@ public class CatpointGui extends JFrame {
         getContentPane().add(mainPanel);
 
     }
+
+    private static ImageService createDetector() {
+        String detector = System.getProperty("catpoint.detector", "fake");
+        if (detector.equals("local")) {
+            return new LocalImageService();
+        }
+        if (!detector.equals("fake")) {
+            log.warn("Unknown detector {}, using the fake image service", detector);
+        }
+        return new FakeImageService();
+    }
+
+    /**
+     * Starts the camera feed named by {@code catpoint.feed}, if any. The feed has its own motion
+     * gate, so frames scanned from the image panel do not disturb its background.
+     */
+    private FramePipeline startCameraFeed() {
+        String feed = System.getProperty("catpoint.feed");
+        if (feed == null) {
+            return null;
+        }
+        Path path = Paths.get(feed);
+        FrameSource source;
+        try {
+            source = Files.isDirectory(path)
+                    ? new DirectoryFrameSource(path)
+                    : MjpegFrameSource.open(path, Double.parseDouble(System.getProperty("catpoint.feed.fps", "10")));
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Unable to open camera feed {}", feed, e);
+            return null;
+        }
+        FramePipeline pipeline = new FramePipeline(source, new MotionGate(), detector,
+                PipelineOptions.latestFrameWins(),
+                result -> SwingUtilities.invokeLater(() -> securityService.processDetection(result.getDetection())));
+        pipeline.start();
+        log.info("Camera feed started from {}", path);
+        return pipeline;
+    }
 }
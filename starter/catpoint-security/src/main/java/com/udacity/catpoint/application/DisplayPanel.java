@@ -5,16 +5,18 @@ import java.awt.FlowLayout;
 import javax.swing.BoxLayout;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import com.udacity.catpoint.data.AlarmStatus;
+import com.udacity.catpoint.service.AlarmStatusEvent;
 import com.udacity.catpoint.service.SecurityService;
 import com.udacity.catpoint.service.StyleService;
 
 /**
- * Displays the current status of the system. Implements the StatusListener
- * interface so that it can be notified whenever the status changes.
+ * Displays the current status of the system. Subscribes to alarm status events so that it
+ * can be updated whenever the status changes.
  */
-public class DisplayPanel extends JPanel implements StatusListener {
+public class DisplayPanel extends JPanel {
 
     private JLabel currentStatusLabel;
 
@@ -22,7 +24,8 @@ public class DisplayPanel extends JPanel implements StatusListener {
         super();
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 
-        securityService.addStatusListener(this);
+        securityService.subscribe(AlarmStatusEvent.class,
+                e -> SwingUtilities.invokeLater(() -> showStatus(e.getCurrent())));
 
         JLabel panelLabel = new JLabel("Very Secure Home Security");
         JLabel systemStatusLabel = new JLabel("System Status:");
@@ -30,7 +33,7 @@ public class DisplayPanel extends JPanel implements StatusListener {
 
         panelLabel.setFont(StyleService.HEADING_FONT);
 
-        notify(securityService.getAlarmStatus());
+        showStatus(securityService.getAlarmStatus());
 
         add(panelLabel);
         JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -40,20 +43,9 @@ public class DisplayPanel extends JPanel implements StatusListener {
 
     }
 
-    @Override
-    public void notify(AlarmStatus status) {
+    private void showStatus(AlarmStatus status) {
         currentStatusLabel.setText(status.getDescription());
         currentStatusLabel.setBackground(status.getColor());
         currentStatusLabel.setOpaque(true);
     }
-
-    @Override
-    public void catDetected(boolean catDetected) {
-        // no behavior necessary
-    }
-
-    @Override
-    public void sensorStatusChanged() {
-        // no behavior necessary
-    }
 }
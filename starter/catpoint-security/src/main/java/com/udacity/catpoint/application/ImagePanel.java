@@ -7,6 +7,9 @@ import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
@@ -17,21 +20,25 @@ import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
-import com.udacity.catpoint.data.AlarmStatus;
+import com.udacity.catpoint.service.CatDetectionEvent;
 import com.udacity.catpoint.service.SecurityService;
 import com.udacity.catpoint.service.StyleService;
 
 /** Panel containing the 'camera' output. Allows users to 'refresh' the camera
  * by uploading their own picture, and 'scan' the picture, sending it for image analysis
  */
-public class ImagePanel extends JPanel implements StatusListener {
+public class ImagePanel extends JPanel {
     private SecurityService securityService;
 
     private JLabel cameraHeader;
     private JLabel cameraLabel;
     private BufferedImage currentCameraImage;
 
+    //a newer scan cancels an older one, so a long timeout does not pile up work
+    private static final Duration SCAN_TIMEOUT = Duration.ofSeconds(15);
+
     private int IMAGE_WIDTH = 300;
     private int IMAGE_HEIGHT = 225;
 
@@ -39,7 +46,8 @@ public class ImagePanel extends JPanel implements StatusListener {
         super();
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         this.securityService = securityService;
-        securityService.addStatusListener(this);
+        securityService.subscribe(CatDetectionEvent.class,
+                e -> SwingUtilities.invokeLater(() -> catDetected(e.isCatDetected())));
 
         cameraHeader = new JLabel("Camera Feed");
         cameraHeader.setFont(StyleService.HEADING_FONT);
@@ -72,7 +80,14 @@ public class ImagePanel extends JPanel implements StatusListener {
         //button that sends the image to the image service
         JButton scanPictureButton = new JButton("Scan Picture");
         scanPictureButton.addActionListener(e -> {
-            securityService.processImage(currentCameraImage);
+            securityService.processImageAsync(currentCameraImage, SCAN_TIMEOUT, SwingUtilities::invokeLater)
+                    .exceptionally(failure -> {
+                        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                        if (!(cause instanceof CancellationException)) {
+                            SwingUtilities.invokeLater(() -> cameraHeader.setText("Camera Feed - Scan Failed"));
+                        }
+                        return null;
+                    });
         });
 
         add(cameraHeader);
@@ -83,22 +98,11 @@ public class ImagePanel extends JPanel implements StatusListener {
         add(buttonPanel);
     }
 
-    @Override
-    public void notify(AlarmStatus status) {
-        //no behavior necessary
-    }
-
-    @Override
-    public void catDetected(boolean catDetected) {
+    private void catDetected(boolean catDetected) {
         if(catDetected) {
             cameraHeader.setText("DANGER - CAT DETECTED");
         } else {
             cameraHeader.setText("Camera Feed - No Cats Detected");
         }
     }
-
-    @Override
-    public void sensorStatusChanged() {
-        //no behavior necessary
-    }
 }
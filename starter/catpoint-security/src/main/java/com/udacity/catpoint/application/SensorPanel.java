@@ -2,6 +2,11 @@ package com.udacity.catpoint.application;
 
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -10,9 +15,12 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 
 import com.udacity.catpoint.data.Sensor;
 import com.udacity.catpoint.data.SensorType;
+import com.udacity.catpoint.service.DispatchOptions;
+import com.udacity.catpoint.service.OverflowPolicy;
 import com.udacity.catpoint.service.SecurityService;
 import com.udacity.catpoint.service.StyleService;
 import com.udacity.catpoint.application.StatusListener;
@@ -35,13 +43,17 @@ public class SensorPanel extends JPanel implements StatusListener {
 
     private JPanel sensorListPanel;
     private JPanel newSensorPanel;
+    //rows currently shown, so single sensors can be refreshed without rebuilding the list
+    private Map<UUID, SensorRow> sensorRows = new HashMap<>();
 
     public SensorPanel(SecurityService securityService) {
         super();
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         this.securityService = securityService;
         // register as a listener so the panel refreshes when sensors or arming change
-        this.securityService.addStatusListener(this);
+        this.securityService.addStatusListener(this, DispatchOptions.queued(16, OverflowPolicy.COALESCE_LATEST)
+                .withExecutor(SwingUtilities::invokeLater)
+                .withCoalescingWindow(Duration.ofMillis(16)));
         panelLabel.setFont(StyleService.HEADING_FONT);
         addNewSensorButton.addActionListener(e ->
                 addSensor(new Sensor(newSensorNameField.getText(),
@@ -73,6 +85,40 @@ public class SensorPanel extends JPanel implements StatusListener {
         updateSensorList(sensorListPanel);
     }
 
+    /**
+     * Refreshes only the rows of the changed sensors, falling back to a full rebuild for
+     * sensors that are not shown yet.
+     */
+    @Override
+    public void sensorsChanged(Set<UUID> sensorIds) {
+        if (!sensorRows.keySet().containsAll(sensorIds)) {
+            updateSensorList(sensorListPanel);
+            return;
+        }
+        sensorIds.forEach(id -> sensorRows.get(id).refresh());
+    }
+
+    /**
+     * The components showing one sensor's state.
+     */
+    private static class SensorRow {
+        private final Sensor sensor;
+        private final JLabel label;
+        private final JButton toggleButton;
+
+        private SensorRow(Sensor sensor, JLabel label, JButton toggleButton) {
+            this.sensor = sensor;
+            this.label = label;
+            this.toggleButton = toggleButton;
+            refresh();
+        }
+
+        private void refresh() {
+            label.setText(String.format("%s(%s): %s", sensor.getName(),  sensor.getSensorType().toString(),(sensor.getActive() ? "Active" : "Inactive")));
+            toggleButton.setText((sensor.getActive() ? "Deactivate" : "Activate"));
+        }
+    }
+
     /**
      * Builds the panel with the form for adding a new sensor
      */
@@ -94,10 +140,12 @@ public class SensorPanel extends JPanel implements StatusListener {
      */
     private void updateSensorList(JPanel p) {
         p.removeAll();
-        securityService.getSensors().stream().sorted().forEach(s -> {
-            JLabel sensorLabel = new JLabel(String.format("%s(%s): %s", s.getName(),  s.getSensorType().toString(),(s.getActive() ? "Active" : "Inactive")));
-            JButton sensorToggleButton = new JButton((s.getActive() ? "Deactivate" : "Activate"));
+        sensorRows.clear();
+        securityService.getSensorsInDisplayOrder().forEach(s -> {
+            JLabel sensorLabel = new JLabel();
+            JButton sensorToggleButton = new JButton();
             JButton sensorRemoveButton = new JButton("Remove Sensor");
+            sensorRows.put(s.getSensorId(), new SensorRow(s, sensorLabel, sensorToggleButton));
 
             sensorToggleButton.addActionListener(e -> setSensorActivity(s, !s.getActive()) );
             sensorRemoveButton.addActionListener(e -> removeSensor(s));
@@ -117,13 +165,13 @@ public class SensorPanel extends JPanel implements StatusListener {
     }
 
     /**
-     * Asks the securityService to change a sensor activation status and then rebuilds the current sensor list
+     * Asks the securityService to change a sensor activation status and then refreshes that sensor's row
      * @param sensor The sensor to update
      * @param isActive The sensor's activation status
      */
     private void setSensorActivity(Sensor sensor, Boolean isActive) {
         securityService.changeSensorActivationStatus(sensor, isActive);
-        updateSensorList(sensorListPanel);
+        sensorsChanged(Set.of(sensor.getSensorId()));
     }
 
     /**
@@ -2,8 +2,20 @@ package com.udacity.catpoint.application;
 
 import com.udacity.catpoint.data.AlarmStatus;
 
+import java.util.Set;
+import java.util.UUID;
+
 public interface StatusListener {
     void notify(AlarmStatus status);
     void catDetected(boolean catDetected);
     void sensorStatusChanged();
+
+    /**
+     * Called instead of {@link #sensorStatusChanged()} when it is known which sensors changed.
+     * Listeners that can update only those sensors should override this; by default it falls
+     * back to a full refresh.
+     */
+    default void sensorsChanged(Set<UUID> sensorIds) {
+        sensorStatusChanged();
+    }
 }
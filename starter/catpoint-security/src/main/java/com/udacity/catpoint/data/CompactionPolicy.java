@@ -0,0 +1,47 @@
+package com.udacity.catpoint.data;
+
+/**
+ * Decides when a log based repository should take a snapshot of its state and drop the log
+ * records that the snapshot covers. Thresholds apply to the log written since the last snapshot.
+ */
+public final class CompactionPolicy {
+
+    private final long maxBytes;
+    private final long maxRecords;
+
+    private CompactionPolicy(long maxBytes, long maxRecords) {
+        this.maxBytes = maxBytes;
+        this.maxRecords = maxRecords;
+    }
+
+    /**
+     * Compact once the log has grown by at least the given number of bytes.
+     */
+    public static CompactionPolicy ofBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        return new CompactionPolicy(maxBytes, Long.MAX_VALUE);
+    }
+
+    /**
+     * Compact once at least the given number of records have been appended to the log.
+     */
+    public static CompactionPolicy ofRecords(long maxRecords) {
+        if (maxRecords <= 0) {
+            throw new IllegalArgumentException("maxRecords must be positive");
+        }
+        return new CompactionPolicy(Long.MAX_VALUE, maxRecords);
+    }
+
+    /**
+     * Never compact; the log grows for the lifetime of the repository.
+     */
+    public static CompactionPolicy never() {
+        return new CompactionPolicy(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public boolean shouldCompact(long bytesSinceSnapshot, long recordsSinceSnapshot) {
+        return bytesSinceSnapshot >= maxBytes || recordsSinceSnapshot >= maxRecords;
+    }
+}
@@ -0,0 +1,481 @@
+package com.udacity.catpoint.data;
+
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Repository implementation that appends one small record per change to a local log file
+ * instead of rewriting the whole sensor set, so the cost of a write stays the same no matter
+ * how many sensors exist.
+ *
+ * The log is split into numbered segments inside a directory. When the {@link CompactionPolicy}
+ * fires, the writer simply starts a new segment and a background thread folds the finished
+ * segments into a snapshot of the full state, after which those segments are deleted. Opening
+ * the repository loads the newest snapshot and replays only the segments written after it.
+ *
+ * Records are written through to the operating system after every change. A record that was
+ * only partially written (for example because the process died mid-write) is discarded and
+ * trimmed from the end of the log on the next start.
+ */
+public class LogFileSecurityRepositoryImpl implements SecurityRepository, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LogFileSecurityRepositoryImpl.class);
+
+    private static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".catpoint", "security");
+    private static final CompactionPolicy DEFAULT_POLICY = CompactionPolicy.ofBytes(4L * 1024 * 1024);
+
+    private static final int LOG_MAGIC = 0xCA7901;
+    private static final int SNAPSHOT_MAGIC = 0xCA7902;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 8;
+
+    private static final String LOG_SUFFIX = "log";
+    private static final String SNAPSHOT_SUFFIX = "snapshot";
+    private static final Pattern FILE_NAME = Pattern.compile("security-(\\d{16})\\.(log|snapshot)");
+
+    //record types
+    private static final byte SENSOR_UPSERT = 1;
+    private static final byte SENSOR_REMOVE = 2;
+    private static final byte ALARM_STATUS = 3;
+    private static final byte ARMING_STATUS = 4;
+
+    private final Path directory;
+    private final CompactionPolicy compactionPolicy;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+
+    private final SensorIndex sensors = new SensorIndex();
+    private AlarmStatus alarmStatus;
+    private ArmingStatus armingStatus;
+
+    //segment currently being appended to
+    private DataOutputStream out;
+    private long generation;
+    private long segmentBaseBytes;
+    private long segmentRecords;
+
+    public LogFileSecurityRepositoryImpl() {
+        this(DEFAULT_DIRECTORY);
+    }
+
+    public LogFileSecurityRepositoryImpl(Path directory) {
+        this(directory, DEFAULT_POLICY);
+    }
+
+    public LogFileSecurityRepositoryImpl(Path directory, CompactionPolicy compactionPolicy) {
+        this.directory = directory;
+        this.compactionPolicy = compactionPolicy;
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Unable to open security log in " + directory, ioe);
+        }
+        this.compactor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("catpoint-log-compactor")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Loads the newest snapshot, replays every segment written after it and opens the last
+     * segment for appending.
+     */
+    private void open() throws IOException {
+        long snapshotGeneration = latestGeneration(SNAPSHOT_SUFFIX, Long.MAX_VALUE);
+        State state = new State();
+        if (snapshotGeneration >= 0) {
+            readSnapshot(path(snapshotGeneration, SNAPSHOT_SUFFIX), state);
+        }
+
+        List<Long> segments = generations(LOG_SUFFIX);
+        long tail = segments.isEmpty() ? -1 : segments.get(segments.size() - 1);
+        for (long segment : segments) {
+            if (segment < snapshotGeneration) {
+                //already folded into the snapshot, left over from an interrupted cleanup
+                Files.deleteIfExists(path(segment, LOG_SUFFIX));
+            } else {
+                long records = replaySegment(path(segment, LOG_SUFFIX), state, segment == tail);
+                if (segment == tail) {
+                    segmentRecords = records;
+                }
+            }
+        }
+
+        state.sensors.values().forEach(sensors::put);
+        alarmStatus = state.alarmStatus;
+        armingStatus = state.armingStatus;
+
+        if (tail >= snapshotGeneration && tail >= 0) {
+            generation = tail;
+            openSegment(false);
+        } else {
+            generation = Math.max(snapshotGeneration, 0);
+            openSegment(true);
+        }
+    }
+
+    private void openSegment(boolean create) throws IOException {
+        Path segment = path(generation, LOG_SUFFIX);
+        out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(segment, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        if (create) {
+            out.writeInt(LOG_MAGIC);
+            out.writeInt(VERSION);
+            out.flush();
+            segmentRecords = 0;
+        }
+        segmentBaseBytes = Files.size(segment) - out.size();
+    }
+
+    /**
+     * Reads every complete record in a segment and applies it to the given state. When the
+     * segment is the tail of the log, anything after the last complete record is truncated so
+     * new records are appended to a clean end. A tail shorter than its header is treated as
+     * empty and gets its header written again.
+     *
+     * @return the number of records replayed
+     */
+    private static long replaySegment(Path segment, State state, boolean tail) throws IOException {
+        if (tail && Files.size(segment) < HEADER_BYTES) {
+            //crashed between creating the segment and flushing its header
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(segment,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+                out.writeInt(LOG_MAGIC);
+                out.writeInt(VERSION);
+            }
+            return 0;
+        }
+        long records = 0;
+        long validLength;
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(segment)));
+             DataInputStream in = new DataInputStream(counter)) {
+            if (in.readInt() != LOG_MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a catpoint security log: " + segment);
+            }
+            validLength = counter.getCount();
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    state.apply(type, in);
+                    records++;
+                    validLength = counter.getCount();
+                }
+            } catch (EOFException eof) {
+                //end of segment, possibly in the middle of a torn record
+            }
+        }
+        if (tail && validLength < Files.size(segment)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+        return records;
+    }
+
+    private static void readSnapshot(Path snapshot, State state) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a catpoint security snapshot: " + snapshot);
+            }
+            state.alarmStatus = SensorCodec.readAlarmStatus(in);
+            state.armingStatus = SensorCodec.readArmingStatus(in);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Sensor sensor = SensorCodec.readSensor(in);
+                state.sensors.put(sensor.getSensorId(), sensor);
+            }
+        }
+    }
+
+    /**
+     * Builds the snapshot for the given generation from the previous snapshot plus every
+     * segment before that generation, then deletes the files it replaces. Runs on the compactor
+     * thread and only touches files the writer has already finished with.
+     */
+    private void compact(long target) throws IOException {
+        State state = new State();
+        long base = latestGeneration(SNAPSHOT_SUFFIX, target);
+        if (base >= 0) {
+            readSnapshot(path(base, SNAPSHOT_SUFFIX), state);
+        }
+        List<Long> segments = generations(LOG_SUFFIX);
+        for (long segment : segments) {
+            if (segment >= base && segment < target) {
+                replaySegment(path(segment, LOG_SUFFIX), state, false);
+            }
+        }
+
+        Path snapshot = path(target, SNAPSHOT_SUFFIX);
+        Path temp = directory.resolve(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream o = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            o.writeInt(SNAPSHOT_MAGIC);
+            o.writeInt(VERSION);
+            SensorCodec.writeAlarmStatus(o, state.alarmStatus);
+            SensorCodec.writeArmingStatus(o, state.armingStatus);
+            o.writeInt(state.sensors.size());
+            for (Sensor sensor : state.sensors.values()) {
+                SensorCodec.writeSensor(o, sensor);
+            }
+            o.flush();
+            channel.force(true);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (long segment : segments) {
+            if (segment < target) {
+                Files.deleteIfExists(path(segment, LOG_SUFFIX));
+            }
+        }
+        for (long old : generations(SNAPSHOT_SUFFIX)) {
+            if (old < target) {
+                Files.deleteIfExists(path(old, SNAPSHOT_SUFFIX));
+            }
+        }
+    }
+
+    private Path path(long generation, String suffix) {
+        return directory.resolve(String.format("security-%016d.%s", generation, suffix));
+    }
+
+    private List<Long> generations(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> FILE_NAME.matcher(p.getFileName().toString()))
+                    .filter(m -> m.matches() && m.group(2).equals(suffix))
+                    .map(m -> Long.parseLong(m.group(1)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private long latestGeneration(String suffix, long below) throws IOException {
+        long latest = -1;
+        for (long g : generations(suffix)) {
+            if (g < below) {
+                latest = g;
+            }
+        }
+        return latest;
+    }
+
+    private static void writeSensorUpsert(DataOutputStream o, Sensor sensor) throws IOException {
+        o.writeByte(SENSOR_UPSERT);
+        SensorCodec.writeSensor(o, sensor);
+    }
+
+    private static void writeSensorRemove(DataOutputStream o, Sensor sensor) throws IOException {
+        o.writeByte(SENSOR_REMOVE);
+        SensorCodec.writeSensorId(o, sensor.getSensorId());
+    }
+
+    /**
+     * Writes a single record and pushes it through to the operating system.
+     */
+    private void append(RecordWriter record) {
+        append(record, 1);
+    }
+
+    /**
+     * Writes a group of records and pushes them through to the operating system together.
+     */
+    private void append(RecordWriter records, int count) {
+        try {
+            records.write(out);
+            out.flush();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Unable to write security log in " + directory, ioe);
+        }
+        segmentRecords += count;
+        maybeCompact();
+    }
+
+    /**
+     * Starts a new segment and hands the finished ones to the compactor when the policy says so.
+     * The caller only pays for closing one file and opening another.
+     */
+    private void maybeCompact() {
+        if (!compactionPolicy.shouldCompact(segmentBaseBytes + out.size(), segmentRecords)
+                || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        long target;
+        try {
+            out.close();
+            generation++;
+            openSegment(true);
+            target = generation;
+        } catch (IOException ioe) {
+            compacting.set(false);
+            throw new UncheckedIOException("Unable to start new security log segment in " + directory, ioe);
+        }
+        compactor.execute(() -> {
+            try {
+                compact(target);
+            } catch (IOException | RuntimeException e) {
+                log.error("Unable to compact security log in " + directory, e);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void addSensor(Sensor sensor) {
+        sensors.put(sensor);
+        append(o -> writeSensorUpsert(o, sensor));
+    }
+
+    @Override
+    public synchronized void removeSensor(Sensor sensor) {
+        sensors.remove(sensor.getSensorId());
+        append(o -> writeSensorRemove(o, sensor));
+    }
+
+    @Override
+    public synchronized void updateSensor(Sensor sensor) {
+        sensors.put(sensor);
+        append(o -> writeSensorUpsert(o, sensor));
+    }
+
+    @Override
+    public synchronized void updateSensors(Collection<Sensor> updated) {
+        updated.forEach(sensors::put);
+        append(o -> {
+            for (Sensor sensor : updated) {
+                writeSensorUpsert(o, sensor);
+            }
+        }, updated.size());
+    }
+
+    @Override
+    public synchronized void setAlarmStatus(AlarmStatus alarmStatus) {
+        this.alarmStatus = alarmStatus;
+        append(o -> {
+            o.writeByte(ALARM_STATUS);
+            SensorCodec.writeAlarmStatus(o, alarmStatus);
+        });
+    }
+
+    @Override
+    public synchronized void setArmingStatus(ArmingStatus armingStatus) {
+        this.armingStatus = armingStatus;
+        append(o -> {
+            o.writeByte(ARMING_STATUS);
+            SensorCodec.writeArmingStatus(o, armingStatus);
+        });
+    }
+
+    @Override
+    public synchronized Set<Sensor> getSensors() {
+        return sensors.values();
+    }
+
+    @Override
+    public synchronized List<Sensor> getSensorsInDisplayOrder() {
+        return sensors.displayOrder();
+    }
+
+    @Override
+    public synchronized int activeSensorCount() {
+        return sensors.activeCount();
+    }
+
+    @Override
+    public synchronized boolean hasActiveSensors() {
+        return sensors.activeCount() > 0;
+    }
+
+    @Override
+    public synchronized AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    @Override
+    public synchronized ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    /**
+     * Closes the current segment and waits for any compaction that is still running.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            out.close();
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Repository state rebuilt from snapshots and log records.
+     */
+    private static class State {
+        private final Map<UUID, Sensor> sensors = new HashMap<>();
+        private AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
+        private ArmingStatus armingStatus = ArmingStatus.DISARMED;
+
+        private void apply(byte type, DataInputStream in) throws IOException {
+            switch (type) {
+                case SENSOR_UPSERT: {
+                    Sensor sensor = SensorCodec.readSensor(in);
+                    sensors.put(sensor.getSensorId(), sensor);
+                    break;
+                }
+                case SENSOR_REMOVE:
+                    sensors.remove(SensorCodec.readSensorId(in));
+                    break;
+                case ALARM_STATUS:
+                    alarmStatus = SensorCodec.readAlarmStatus(in);
+                    break;
+                case ARMING_STATUS:
+                    armingStatus = SensorCodec.readArmingStatus(in);
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + type);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,405 @@
+package com.udacity.catpoint.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Repository backed by a fixed layout file that is memory mapped when the repository opens, so
+ * there is no document to parse at startup. Every change is written in place into the mapping
+ * and reaches the disk through the operating system's page cache.
+ *
+ * The file holds a small header with the system statuses, a packed bit region with one active
+ * flag per slot, and a region of fixed size sensor slots. Turning a sensor on or off only flips
+ * its bit. When all slots are in use the file grows in place to twice the capacity.
+ */
+public class MappedFileSecurityRepositoryImpl implements SecurityRepository, Closeable {
+
+    private static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".catpoint", "security.dat");
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int MAGIC = 0xCA7903;
+    private static final int VERSION = 1;
+
+    //header layout
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int ALARM_OFFSET = 12;
+    private static final int ARMING_OFFSET = 16;
+    private static final int HIGH_WATER_OFFSET = 20;
+    private static final int PENDING_CAPACITY_OFFSET = 24;
+
+    //slot layout
+    static final int MAX_NAME_BYTES = 100;
+    private static final int SLOT_BYTES = 128;
+    private static final int SLOT_USED = 0;
+    private static final int SLOT_TYPE = 1;
+    private static final int SLOT_NAME_LENGTH = 2;
+    private static final int SLOT_MSB = 8;
+    private static final int SLOT_LSB = 16;
+    private static final int SLOT_NAME = 24;
+
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final byte[] ZEROES = new byte[4096];
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int highWater;
+
+    private final SensorIndex sensors = new SensorIndex();
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    //name and type last written to each slot, so unchanged slots are not rewritten
+    private String[] slotNames;
+    private SensorType[] slotTypes;
+
+    public MappedFileSecurityRepositoryImpl() {
+        this(DEFAULT_FILE);
+    }
+
+    public MappedFileSecurityRepositoryImpl(Path file) {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity number of sensor slots to create if the file does not exist yet
+     */
+    public MappedFileSecurityRepositoryImpl(Path file, int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        this.file = file;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            if (!Files.exists(file)) {
+                createFile(file, roundCapacity(initialCapacity), AlarmStatus.NO_ALARM, ArmingStatus.DISARMED);
+            }
+            map();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Unable to open security state file " + file, ioe);
+        }
+        load();
+    }
+
+    //capacity is kept a multiple of 64 so the bit region is made of whole longs
+    private static int roundCapacity(int capacity) {
+        return (capacity + 63) & ~63;
+    }
+
+    private static int bitRegionBytes(int capacity) {
+        return capacity / 8;
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_BYTES + bitRegionBytes(capacity) + (long) capacity * SLOT_BYTES;
+    }
+
+    private int slotOffset(int slot) {
+        return HEADER_BYTES + bitRegionBytes(capacity) + slot * SLOT_BYTES;
+    }
+
+    private static void createFile(Path target, int capacity, AlarmStatus alarmStatus, ArmingStatus armingStatus) throws IOException {
+        try (FileChannel fc = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putInt(CAPACITY_OFFSET, capacity);
+            header.putInt(ALARM_OFFSET, alarmStatus.ordinal());
+            header.putInt(ARMING_OFFSET, armingStatus.ordinal());
+            header.putInt(HIGH_WATER_OFFSET, 0);
+            fc.write(header, 0);
+            //extend to full size; the new region reads as zeroes, i.e. empty slots
+            fc.write(ByteBuffer.allocate(1), fileSize(capacity) - 1);
+            fc.force(true);
+        }
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (map.getInt(MAGIC_OFFSET) != MAGIC || map.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Not a catpoint security state file: " + file);
+        }
+        if (map.getInt(PENDING_CAPACITY_OFFSET) != 0) {
+            //the last run stopped part way through growing the file
+            finishGrow();
+        }
+        capacity = map.getInt(CAPACITY_OFFSET);
+        highWater = map.getInt(HIGH_WATER_OFFSET);
+        if (channel.size() < fileSize(capacity)) {
+            throw new IOException("Security state file is truncated: " + file);
+        }
+        slotNames = Arrays.copyOf(slotNames == null ? new String[0] : slotNames, capacity);
+        slotTypes = Arrays.copyOf(slotTypes == null ? new SensorType[0] : slotTypes, capacity);
+    }
+
+    /**
+     * Builds the in-memory sensor objects from the slots in use.
+     */
+    private void load() {
+        for (int slot = 0; slot < highWater; slot++) {
+            int offset = slotOffset(slot);
+            if (map.get(offset + SLOT_USED) == 0) {
+                freeSlots.push(slot);
+                continue;
+            }
+            UUID id = new UUID(map.getLong(offset + SLOT_MSB), map.getLong(offset + SLOT_LSB));
+            SensorType sensorType = SENSOR_TYPES[map.get(offset + SLOT_TYPE)];
+            byte[] nameBytes = new byte[map.getShort(offset + SLOT_NAME_LENGTH)];
+            ByteBuffer name = map.duplicate();
+            name.position(offset + SLOT_NAME);
+            name.get(nameBytes);
+            Sensor sensor = new Sensor(new String(nameBytes, StandardCharsets.UTF_8), sensorType);
+            sensor.setSensorId(id);
+            sensor.setActive(getBit(slot));
+            sensors.put(sensor);
+            slots.put(id, slot);
+            slotNames[slot] = sensor.getName();
+            slotTypes[slot] = sensorType;
+        }
+    }
+
+    private boolean getBit(int slot) {
+        long word = map.getLong(HEADER_BYTES + (slot >>> 6) * 8);
+        return (word & (1L << (slot & 63))) != 0;
+    }
+
+    private void setBit(int slot, boolean value) {
+        int offset = HEADER_BYTES + (slot >>> 6) * 8;
+        long word = map.getLong(offset);
+        long mask = 1L << (slot & 63);
+        long updated = value ? word | mask : word & ~mask;
+        if (updated != word) {
+            map.putLong(offset, updated);
+        }
+    }
+
+    private static byte[] encodeName(Sensor sensor) {
+        byte[] nameBytes = sensor.getName().getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Sensor name is longer than " + MAX_NAME_BYTES + " bytes");
+        }
+        return nameBytes;
+    }
+
+    private void writeSlot(int slot, Sensor sensor, byte[] nameBytes) {
+        int offset = slotOffset(slot);
+        map.putLong(offset + SLOT_MSB, sensor.getSensorId().getMostSignificantBits());
+        map.putLong(offset + SLOT_LSB, sensor.getSensorId().getLeastSignificantBits());
+        map.put(offset + SLOT_TYPE, (byte) sensor.getSensorType().ordinal());
+        map.putShort(offset + SLOT_NAME_LENGTH, (short) nameBytes.length);
+        ByteBuffer name = map.duplicate();
+        name.position(offset + SLOT_NAME);
+        name.put(nameBytes);
+        slotNames[slot] = sensor.getName();
+        slotTypes[slot] = sensor.getSensorType();
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (highWater == capacity) {
+            grow();
+        }
+        int slot = highWater++;
+        map.putInt(HIGH_WATER_OFFSET, highWater);
+        return slot;
+    }
+
+    /**
+     * Doubles the number of slots in place. Slot numbers stay the same; only the start of the
+     * slot region moves because the bit region gets longer.
+     *
+     * The file is extended first and the used slots are parked in the new, still free half of
+     * the slot region. The new capacity is then recorded as pending, so if the process stops
+     * before the move is finished, the next open finishes it from the parked copy.
+     */
+    private void grow() {
+        int newCapacity = capacity * 2;
+        try {
+            map.force();
+            channel.write(ByteBuffer.allocate(1), fileSize(newCapacity) - 1);
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(newCapacity));
+            copy(slotOffset(0), parkedOffset(capacity, newCapacity), highWater * SLOT_BYTES);
+            map.force();
+            map.putInt(PENDING_CAPACITY_OFFSET, newCapacity);
+            map.force();
+            finishGrow();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Unable to grow security state file " + file, ioe);
+        }
+        capacity = newCapacity;
+        slotNames = Arrays.copyOf(slotNames, capacity);
+        slotTypes = Arrays.copyOf(slotTypes, capacity);
+    }
+
+    /**
+     * Moves the parked slots to the start of the grown slot region and makes the new capacity
+     * current. Safe to repeat until the capacity has been switched.
+     */
+    private void finishGrow() throws IOException {
+        int oldCapacity = map.getInt(CAPACITY_OFFSET);
+        int newCapacity = map.getInt(PENDING_CAPACITY_OFFSET);
+        if (map.capacity() < fileSize(newCapacity)) {
+            throw new IOException("Security state file is truncated: " + file);
+        }
+        int slotBytes = map.getInt(HIGH_WATER_OFFSET) * SLOT_BYTES;
+        int newSlotStart = HEADER_BYTES + bitRegionBytes(newCapacity);
+        int parked = parkedOffset(oldCapacity, newCapacity);
+        //the added bits overlay the start of the old slot region
+        zero(HEADER_BYTES + bitRegionBytes(oldCapacity), newSlotStart);
+        copy(parked, newSlotStart, slotBytes);
+        map.force();
+        map.putInt(CAPACITY_OFFSET, newCapacity);
+        map.putInt(PENDING_CAPACITY_OFFSET, 0);
+        map.force();
+        zero(parked, parked + slotBytes);
+    }
+
+    //first slot of the free half of the grown slot region; never overlaps the old layout
+    private static int parkedOffset(int oldCapacity, int newCapacity) {
+        return HEADER_BYTES + bitRegionBytes(newCapacity) + oldCapacity * SLOT_BYTES;
+    }
+
+    private void copy(int from, int to, int length) {
+        ByteBuffer source = map.duplicate();
+        source.limit(from + length).position(from);
+        ByteBuffer target = map.duplicate();
+        target.position(to);
+        target.put(source);
+    }
+
+    private void zero(int from, int to) {
+        ByteBuffer target = map.duplicate();
+        target.position(from);
+        for (int remaining = to - from; remaining > 0; remaining -= ZEROES.length) {
+            target.put(ZEROES, 0, Math.min(remaining, ZEROES.length));
+        }
+    }
+
+    @Override
+    public synchronized void addSensor(Sensor sensor) {
+        Integer existing = slots.get(sensor.getSensorId());
+        if (existing != null) {
+            updateSensor(sensor);
+            return;
+        }
+        byte[] nameBytes = encodeName(sensor);
+        int slot = allocateSlot();
+        writeSlot(slot, sensor, nameBytes);
+        setBit(slot, sensor.getActive());
+        //mark the slot used last so a half written slot is never loaded
+        map.put(slotOffset(slot) + SLOT_USED, (byte) 1);
+        slots.put(sensor.getSensorId(), slot);
+        sensors.put(sensor);
+    }
+
+    @Override
+    public synchronized void removeSensor(Sensor sensor) {
+        Integer slot = slots.remove(sensor.getSensorId());
+        if (slot == null) {
+            return;
+        }
+        map.put(slotOffset(slot) + SLOT_USED, (byte) 0);
+        setBit(slot, false);
+        slotNames[slot] = null;
+        slotTypes[slot] = null;
+        freeSlots.push(slot);
+        sensors.remove(sensor.getSensorId());
+    }
+
+    @Override
+    public synchronized void updateSensor(Sensor sensor) {
+        Integer slot = slots.get(sensor.getSensorId());
+        if (slot == null) {
+            addSensor(sensor);
+            return;
+        }
+        if (!sensor.getName().equals(slotNames[slot]) || sensor.getSensorType() != slotTypes[slot]) {
+            writeSlot(slot, sensor, encodeName(sensor));
+        }
+        setBit(slot, sensor.getActive());
+        sensors.put(sensor);
+    }
+
+    @Override
+    public synchronized void updateSensors(Collection<Sensor> updated) {
+        updated.forEach(this::updateSensor);
+    }
+
+    @Override
+    public synchronized void setAlarmStatus(AlarmStatus alarmStatus) {
+        map.putInt(ALARM_OFFSET, alarmStatus.ordinal());
+    }
+
+    @Override
+    public synchronized void setArmingStatus(ArmingStatus armingStatus) {
+        map.putInt(ARMING_OFFSET, armingStatus.ordinal());
+    }
+
+    @Override
+    public synchronized Set<Sensor> getSensors() {
+        return sensors.values();
+    }
+
+    @Override
+    public synchronized List<Sensor> getSensorsInDisplayOrder() {
+        return sensors.displayOrder();
+    }
+
+    @Override
+    public synchronized int activeSensorCount() {
+        return sensors.activeCount();
+    }
+
+    @Override
+    public synchronized boolean hasActiveSensors() {
+        return sensors.activeCount() > 0;
+    }
+
+    @Override
+    public synchronized AlarmStatus getAlarmStatus() {
+        return ALARM_STATUSES[map.getInt(ALARM_OFFSET)];
+    }
+
+    @Override
+    public synchronized ArmingStatus getArmingStatus() {
+        return ARMING_STATUSES[map.getInt(ARMING_OFFSET)];
+    }
+
+    /**
+     * Forces outstanding changes to disk and closes the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+}
@@ -1,11 +1,10 @@
 package com.udacity.catpoint.data;
 
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.Gson;
-
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.prefs.Preferences;
 
 /**
@@ -15,7 +14,7 @@ import java.util.prefs.Preferences;
  */
 public class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository{
 
-    private Set<Sensor> sensors;
+    private final SensorIndex sensors = new SensorIndex();
     private AlarmStatus alarmStatus;
     private ArmingStatus armingStatus;
 
@@ -24,10 +23,33 @@ public class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository
     private static final String ALARM_STATUS = "ALARM_STATUS";
     private static final String ARMING_STATUS = "ARMING_STATUS";
 
-    private static final Preferences prefs = Preferences.userNodeForPackage(PretendDatabaseSecurityRepositoryImpl.class);
-    private static final Gson gson = new Gson(); //used to serialize objects into JSON
+    private static final String HOMES = "homes";
+
+    private final Preferences prefs;
 
     public PretendDatabaseSecurityRepositoryImpl() {
+        this(Preferences.userNodeForPackage(PretendDatabaseSecurityRepositoryImpl.class));
+    }
+
+    /**
+     * Creates a repository for one home, stored under its own preferences node so several
+     * homes can live side by side.
+     * @param homeId non-empty id of at most 80 characters that does not contain '/'
+     */
+    public PretendDatabaseSecurityRepositoryImpl(String homeId) {
+        this(Preferences.userNodeForPackage(PretendDatabaseSecurityRepositoryImpl.class).node(HOMES).node(checkHomeId(homeId)));
+    }
+
+    private static String checkHomeId(String homeId) {
+        if (homeId.isEmpty() || homeId.indexOf('/') >= 0 || homeId.length() > Preferences.MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Invalid home id: " + homeId);
+        }
+        return homeId;
+    }
+
+    private PretendDatabaseSecurityRepositoryImpl(Preferences prefs) {
+        this.prefs = prefs;
+
         //load system state from prefs, or else default
         alarmStatus = AlarmStatus.valueOf(prefs.get(ALARM_STATUS, AlarmStatus.NO_ALARM.toString()));
         armingStatus = ArmingStatus.valueOf(prefs.get(ARMING_STATUS, ArmingStatus.DISARMED.toString()));
@@ -35,32 +57,37 @@ public class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository
         //we've serialized our sensor objects for storage, which should be a good warning sign that
         // this is likely an impractical solution for a real system
         String sensorString = prefs.get(SENSORS, null);
-        if(sensorString == null) {
-            sensors = new TreeSet<>();
-        } else {
-            Type type = new TypeToken<Set<Sensor>>() {
-            }.getType();
-            sensors = gson.fromJson(sensorString, type);
+        if(sensorString != null) {
+            try {
+                SensorCodec.fromJson(sensorString, sensors::put);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException("Unable to read stored sensors", ioe);
+            }
         }
     }
 
     @Override
     public void addSensor(Sensor sensor) {
-        sensors.add(sensor);
-        prefs.put(SENSORS, gson.toJson(sensors));
+        sensors.put(sensor);
+        prefs.put(SENSORS, SensorCodec.toJson(sensors.values()));
     }
 
     @Override
     public void removeSensor(Sensor sensor) {
-        sensors.remove(sensor);
-        prefs.put(SENSORS, gson.toJson(sensors));
+        sensors.remove(sensor.getSensorId());
+        prefs.put(SENSORS, SensorCodec.toJson(sensors.values()));
     }
 
     @Override
     public void updateSensor(Sensor sensor) {
-        sensors.remove(sensor);
-        sensors.add(sensor);
-        prefs.put(SENSORS, gson.toJson(sensors));
+        sensors.put(sensor);
+        prefs.put(SENSORS, SensorCodec.toJson(sensors.values()));
+    }
+
+    @Override
+    public void updateSensors(Collection<Sensor> updated) {
+        updated.forEach(sensors::put);
+        prefs.put(SENSORS, SensorCodec.toJson(sensors.values()));
     }
 
     @Override
@@ -77,7 +104,22 @@ public class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository
 
     @Override
     public Set<Sensor> getSensors() {
-        return sensors;
+        return sensors.values();
+    }
+
+    @Override
+    public List<Sensor> getSensorsInDisplayOrder() {
+        return sensors.displayOrder();
+    }
+
+    @Override
+    public int activeSensorCount() {
+        return sensors.activeCount();
+    }
+
+    @Override
+    public boolean hasActiveSensors() {
+        return sensors.activeCount() > 0;
     }
 
     @Override
@@ -1,14 +1,46 @@
 package com.udacity.catpoint.data;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public interface SecurityRepository {
     void addSensor(Sensor sensor);
     void removeSensor(Sensor sensor);
     void updateSensor(Sensor sensor);
+
+    /**
+     * Stores the current state of several sensors at once. Implementations that persist the
+     * whole sensor set should override this so the batch is written only once.
+     */
+    default void updateSensors(Collection<Sensor> sensors) {
+        sensors.forEach(this::updateSensor);
+    }
+
     void setAlarmStatus(AlarmStatus alarmStatus);
     void setArmingStatus(ArmingStatus armingStatus);
     Set<Sensor> getSensors();
+
+    /**
+     * @return the sensors sorted for display by name, then type
+     */
+    default List<Sensor> getSensorsInDisplayOrder() {
+        return getSensors().stream().sorted().collect(Collectors.toList());
+    }
+
     AlarmStatus getAlarmStatus();
     ArmingStatus getArmingStatus();
+
+    /**
+     * Number of stored sensors that are currently active. Implementations should track this as
+     * sensors are written rather than scanning, since it is checked on every deactivation.
+     */
+    default int activeSensorCount() {
+        return (int) getSensors().stream().filter(Sensor::getActive).count();
+    }
+
+    default boolean hasActiveSensors() {
+        return activeSensorCount() > 0;
+    }
 }
@@ -1,8 +1,6 @@
 package com.udacity.catpoint.data;
 
-
-import com.google.common.collect.ComparisonChain;
-
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -10,6 +8,14 @@ import java.util.UUID;
  * Sensor POJO. Needs to know how to sort itself for display purposes.
  */
 public class Sensor implements Comparable<Sensor> {
+
+    /**
+     * Display ordering: by name, then sensor type, then id.
+     */
+    public static final Comparator<Sensor> DISPLAY_ORDER = Comparator.comparing(Sensor::getName)
+            .thenComparing(s -> s.getSensorType().name())
+            .thenComparing(Sensor::getSensorId);
+
     private UUID sensorId;
     private String name;
     private Boolean active;
@@ -22,6 +28,16 @@ public class Sensor implements Comparable<Sensor> {
         this.active = Boolean.FALSE;
     }
 
+    /**
+     * Restores a stored sensor without generating a random id first.
+     */
+    Sensor(UUID sensorId, String name, SensorType sensorType, boolean active) {
+        this.sensorId = sensorId;
+        this.name = name;
+        this.sensorType = sensorType;
+        this.active = active;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -69,10 +85,6 @@ public class Sensor implements Comparable<Sensor> {
 
     @Override
     public int compareTo(Sensor o) {
-        return ComparisonChain.start()
-                .compare(this.name, o.name)
-                .compare(this.sensorType.toString(), o.sensorType.toString())
-                .compare(this.sensorId, o.sensorId)
-                .result();
+        return DISPLAY_ORDER.compare(this, o);
     }
 }
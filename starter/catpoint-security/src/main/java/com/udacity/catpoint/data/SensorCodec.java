@@ -0,0 +1,185 @@
+package com.udacity.catpoint.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Hand written serialization for sensors and system status, so persistence never needs
+ * reflective access to the data classes.
+ *
+ * The JSON form streams through {@link JsonWriter}/{@link JsonReader} and uses the same field
+ * names the reflective Gson mapping produced, so previously stored sensors still load. The binary
+ * form stores a sensor as its UUID in two longs, the type ordinal, the active flag and a
+ * varint-length UTF-8 name; statuses are stored as a single ordinal byte.
+ */
+public final class SensorCodec {
+
+    private static final String SENSOR_ID = "sensorId";
+    private static final String NAME = "name";
+    private static final String ACTIVE = "active";
+    private static final String SENSOR_TYPE = "sensorType";
+
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+
+    /**
+     * Streaming Gson adapter for a single sensor.
+     */
+    public static final TypeAdapter<Sensor> JSON = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Sensor sensor) throws IOException {
+            out.beginObject();
+            out.name(SENSOR_ID).value(sensor.getSensorId().toString());
+            out.name(NAME).value(sensor.getName());
+            out.name(ACTIVE).value(sensor.getActive());
+            out.name(SENSOR_TYPE).value(sensor.getSensorType().name());
+            out.endObject();
+        }
+
+        @Override
+        public Sensor read(JsonReader in) throws IOException {
+            UUID id = null;
+            String name = null;
+            boolean active = false;
+            SensorType sensorType = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case SENSOR_ID:
+                        id = UUID.fromString(in.nextString());
+                        break;
+                    case NAME:
+                        name = in.nextString();
+                        break;
+                    case ACTIVE:
+                        active = in.nextBoolean();
+                        break;
+                    case SENSOR_TYPE:
+                        sensorType = SensorType.valueOf(in.nextString());
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            if (id == null || sensorType == null) {
+                throw new IOException("Sensor is missing its id or type at " + in.getPath());
+            }
+            return new Sensor(id, name, sensorType, active);
+        }
+    };
+
+    private SensorCodec() {
+    }
+
+    public static String toJson(Collection<Sensor> sensors) {
+        StringWriter buffer = new StringWriter(sensors.size() * 96 + 2);
+        try (JsonWriter out = new JsonWriter(buffer)) {
+            out.beginArray();
+            for (Sensor sensor : sensors) {
+                JSON.write(out, sensor);
+            }
+            out.endArray();
+        } catch (IOException ioe) {
+            //StringWriter does not throw
+            throw new UncheckedIOException(ioe);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Parses a JSON array of sensors, handing each one to the consumer as soon as it is read.
+     */
+    public static void fromJson(String json, Consumer<Sensor> consumer) throws IOException {
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            in.beginArray();
+            while (in.hasNext()) {
+                consumer.accept(JSON.read(in));
+            }
+            in.endArray();
+        }
+    }
+
+    public static void writeSensor(DataOutput out, Sensor sensor) throws IOException {
+        out.writeLong(sensor.getSensorId().getMostSignificantBits());
+        out.writeLong(sensor.getSensorId().getLeastSignificantBits());
+        out.writeByte(sensor.getSensorType().ordinal());
+        out.writeBoolean(sensor.getActive());
+        byte[] name = sensor.getName().getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, name.length);
+        out.write(name);
+    }
+
+    public static Sensor readSensor(DataInput in) throws IOException {
+        UUID id = readSensorId(in);
+        SensorType sensorType = SENSOR_TYPES[in.readUnsignedByte()];
+        boolean active = in.readBoolean();
+        byte[] name = new byte[readVarInt(in)];
+        in.readFully(name);
+        return new Sensor(id, new String(name, StandardCharsets.UTF_8), sensorType, active);
+    }
+
+    public static void writeSensorId(DataOutput out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    public static UUID readSensorId(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    public static void writeAlarmStatus(DataOutput out, AlarmStatus alarmStatus) throws IOException {
+        out.writeByte(alarmStatus.ordinal());
+    }
+
+    public static AlarmStatus readAlarmStatus(DataInput in) throws IOException {
+        return ALARM_STATUSES[in.readUnsignedByte()];
+    }
+
+    public static void writeArmingStatus(DataOutput out, ArmingStatus armingStatus) throws IOException {
+        out.writeByte(armingStatus.ordinal());
+    }
+
+    public static ArmingStatus readArmingStatus(DataInput in) throws IOException {
+        return ARMING_STATUSES[in.readUnsignedByte()];
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,253 @@
+package com.udacity.catpoint.data;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Primary sensor store used by the repositories. Sensors are kept in an open addressing hash
+ * table keyed by the two halves of their UUID, so lookups and updates never go through the
+ * display comparator. The table also remembers whether each sensor was active when it was last
+ * written, which keeps the active count exact even though callers mutate sensors before saving.
+ *
+ * The name/type ordering used by the UI is a secondary view that is only sorted when it is
+ * asked for after a change that could affect it.
+ */
+final class SensorIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] msbs;
+    private long[] lsbs;
+    private Sensor[] sensors;
+    private boolean[] active;
+    //name and type at the time of the last write, used to tell whether the display order moved
+    private String[] names;
+    private SensorType[] types;
+
+    private int size;
+    private int activeCount;
+    private int modCount;
+
+    private List<Sensor> displayOrder;
+    private final Set<Sensor> view = new View();
+
+    SensorIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        sensors = new Sensor[capacity];
+        active = new boolean[capacity];
+        names = new String[capacity];
+        types = new SensorType[capacity];
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ (lsb * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * @return the slot holding the given key, or the empty slot where it would be inserted
+     */
+    private int slot(long msb, long lsb) {
+        int mask = sensors.length - 1;
+        int i = hash(msb, lsb) & mask;
+        while (sensors[i] != null && (msbs[i] != msb || lsbs[i] != lsb)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    Sensor get(UUID id) {
+        return sensors[slot(id.getMostSignificantBits(), id.getLeastSignificantBits())];
+    }
+
+    /**
+     * Inserts the sensor or replaces the one stored under the same id.
+     */
+    void put(Sensor sensor) {
+        long msb = sensor.getSensorId().getMostSignificantBits();
+        long lsb = sensor.getSensorId().getLeastSignificantBits();
+        int i = slot(msb, lsb);
+        boolean isActive = sensor.getActive();
+        if (sensors[i] == null) {
+            msbs[i] = msb;
+            lsbs[i] = lsb;
+            size++;
+            modCount++;
+            displayOrder = null;
+        } else {
+            if (active[i]) {
+                activeCount--;
+            }
+            if (sensors[i] != sensor || !Objects.equals(names[i], sensor.getName()) || types[i] != sensor.getSensorType()) {
+                displayOrder = null;
+            }
+        }
+        sensors[i] = sensor;
+        active[i] = isActive;
+        names[i] = sensor.getName();
+        types[i] = sensor.getSensorType();
+        if (isActive) {
+            activeCount++;
+        }
+        if (size * 4 > sensors.length * 3) {
+            resize(sensors.length * 2);
+        }
+    }
+
+    void remove(UUID id) {
+        int mask = sensors.length - 1;
+        int i = slot(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (sensors[i] == null) {
+            return;
+        }
+        if (active[i]) {
+            activeCount--;
+        }
+        size--;
+        modCount++;
+        displayOrder = null;
+
+        //backward shift deletion keeps probe sequences intact without tombstones
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (sensors[j] == null) {
+                break;
+            }
+            int home = hash(msbs[j], lsbs[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                move(j, hole);
+                hole = j;
+            }
+        }
+        clear(hole);
+    }
+
+    private void move(int from, int to) {
+        msbs[to] = msbs[from];
+        lsbs[to] = lsbs[from];
+        sensors[to] = sensors[from];
+        active[to] = active[from];
+        names[to] = names[from];
+        types[to] = types[from];
+    }
+
+    private void clear(int i) {
+        sensors[i] = null;
+        active[i] = false;
+        names[i] = null;
+        types[i] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        Sensor[] oldSensors = sensors;
+        boolean[] oldActive = active;
+        String[] oldNames = names;
+        SensorType[] oldTypes = types;
+        allocate(capacity);
+        for (int k = 0; k < oldSensors.length; k++) {
+            if (oldSensors[k] != null) {
+                int i = slot(oldMsbs[k], oldLsbs[k]);
+                msbs[i] = oldMsbs[k];
+                lsbs[i] = oldLsbs[k];
+                sensors[i] = oldSensors[k];
+                active[i] = oldActive[k];
+                names[i] = oldNames[k];
+                types[i] = oldTypes[k];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int activeCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return a read-only set view of the stored sensors, in no particular order
+     */
+    Set<Sensor> values() {
+        return view;
+    }
+
+    /**
+     * @return the stored sensors sorted by name, then type, then id
+     */
+    List<Sensor> displayOrder() {
+        if (displayOrder == null) {
+            List<Sensor> sorted = new ArrayList<>(size);
+            sorted.addAll(view);
+            sorted.sort(Sensor.DISPLAY_ORDER);
+            displayOrder = Collections.unmodifiableList(sorted);
+        }
+        return displayOrder;
+    }
+
+    private class View extends AbstractSet<Sensor> {
+        @Override
+        public Iterator<Sensor> iterator() {
+            return new Iterator<>() {
+                private final int expectedModCount = modCount;
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    int i = from;
+                    while (i < sensors.length && sensors[i] == null) {
+                        i++;
+                    }
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < sensors.length;
+                }
+
+                @Override
+                public Sensor next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Sensor sensor = sensors[next];
+                    next = advance(next + 1);
+                    return sensor;
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Sensor && get(((Sensor) o).getSensorId()) != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.udacity.catpoint.data;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository decorator that applies changes in memory right away and persists them to the
+ * wrapped repository later, on a background thread. Repeated writes to the same sensor or status
+ * between flushes are coalesced so only the latest value is persisted, and sensor updates are
+ * handed to the delegate as one batch.
+ *
+ * A batch is flushed once the oldest pending change is {@code maxLatency} old, or as soon as
+ * {@code maxBatchSize} distinct changes are waiting. Call {@link #flush()} or {@link #close()}
+ * to make sure everything has reached the delegate, for example at shutdown. Changes made after
+ * {@code close()} are rejected with {@link IllegalStateException}, since nothing would persist
+ * them.
+ */
+public class WriteBehindSecurityRepository implements SecurityRepository, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindSecurityRepository.class);
+
+    private static final Duration DEFAULT_MAX_LATENCY = Duration.ofMillis(250);
+    private static final int DEFAULT_MAX_BATCH_SIZE = 512;
+
+    private final SecurityRepository delegate;
+    private final long maxLatencyNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flusher;
+    //serializes batches so they reach the delegate in the order they were taken
+    private final Object flushLock = new Object();
+
+    private final SensorIndex sensors = new SensorIndex();
+    private AlarmStatus alarmStatus;
+    private ArmingStatus armingStatus;
+
+    //changes not yet handed to the delegate, keyed so that later writes replace earlier ones
+    private Map<UUID, Sensor> pendingAdds = new LinkedHashMap<>();
+    private Map<UUID, Sensor> pendingUpdates = new LinkedHashMap<>();
+    private Map<UUID, Sensor> pendingRemovals = new LinkedHashMap<>();
+    private AlarmStatus pendingAlarmStatus;
+    private ArmingStatus pendingArmingStatus;
+    private boolean flushScheduled;
+    private boolean immediateFlushQueued;
+    private boolean closed;
+
+    public WriteBehindSecurityRepository(SecurityRepository delegate) {
+        this(delegate, DEFAULT_MAX_LATENCY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public WriteBehindSecurityRepository(SecurityRepository delegate, Duration maxLatency, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.delegate = delegate;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("catpoint-write-behind")
+                .setDaemon(true)
+                .build());
+        //close() flushes directly, so timers still waiting at shutdown can be dropped
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.flusher = executor;
+
+        delegate.getSensors().forEach(sensors::put);
+        alarmStatus = delegate.getAlarmStatus();
+        armingStatus = delegate.getArmingStatus();
+    }
+
+    @Override
+    public synchronized void addSensor(Sensor sensor) {
+        ensureOpen();
+        sensors.put(sensor);
+        UUID id = sensor.getSensorId();
+        if (pendingRemovals.remove(id) != null) {
+            //re-added before the removal was persisted, so the delegate still has it
+            pendingUpdates.put(id, sensor);
+        } else {
+            pendingAdds.put(id, sensor);
+        }
+        changed();
+    }
+
+    @Override
+    public synchronized void removeSensor(Sensor sensor) {
+        ensureOpen();
+        sensors.remove(sensor.getSensorId());
+        UUID id = sensor.getSensorId();
+        pendingUpdates.remove(id);
+        if (pendingAdds.remove(id) == null) {
+            pendingRemovals.put(id, sensor);
+        }
+        changed();
+    }
+
+    @Override
+    public synchronized void updateSensor(Sensor sensor) {
+        ensureOpen();
+        sensors.put(sensor);
+        queueUpdate(sensor);
+        changed();
+    }
+
+    @Override
+    public synchronized void updateSensors(Collection<Sensor> updated) {
+        ensureOpen();
+        updated.forEach(sensor -> {
+            sensors.put(sensor);
+            queueUpdate(sensor);
+        });
+        changed();
+    }
+
+    private void queueUpdate(Sensor sensor) {
+        UUID id = sensor.getSensorId();
+        if (pendingAdds.containsKey(id)) {
+            pendingAdds.put(id, sensor);
+        } else {
+            pendingUpdates.put(id, sensor);
+        }
+    }
+
+    @Override
+    public synchronized void setAlarmStatus(AlarmStatus alarmStatus) {
+        ensureOpen();
+        this.alarmStatus = alarmStatus;
+        pendingAlarmStatus = alarmStatus;
+        changed();
+    }
+
+    @Override
+    public synchronized void setArmingStatus(ArmingStatus armingStatus) {
+        ensureOpen();
+        this.armingStatus = armingStatus;
+        pendingArmingStatus = armingStatus;
+        changed();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Write-behind repository is closed");
+        }
+    }
+
+    private int pendingCount() {
+        return pendingAdds.size() + pendingUpdates.size() + pendingRemovals.size()
+                + (pendingAlarmStatus != null ? 1 : 0) + (pendingArmingStatus != null ? 1 : 0);
+    }
+
+    /**
+     * Schedules a background flush after a change. The first change after a flush starts the
+     * latency timer; reaching the batch size flushes right away.
+     */
+    private void changed() {
+        if (pendingCount() >= maxBatchSize) {
+            if (!immediateFlushQueued) {
+                immediateFlushQueued = true;
+                flushScheduled = true;
+                flusher.execute(this::backgroundFlush);
+            }
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.schedule(this::backgroundFlush, maxLatencyNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void backgroundFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Unable to persist security state, will retry", e);
+            synchronized (this) {
+                //after close() the final flush runs on the closing thread
+                if (!flushScheduled && !closed) {
+                    flushScheduled = true;
+                    flusher.schedule(this::backgroundFlush, maxLatencyNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands every pending change to the delegate on the calling thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Batch batch;
+            synchronized (this) {
+                batch = new Batch();
+                flushScheduled = false;
+                immediateFlushQueued = false;
+            }
+            try {
+                batch.writeTo(delegate);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    batch.requeue();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Flushes pending changes, stops the background thread and closes the delegate if it can be
+     * closed. Does nothing if already closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    @Override
+    public synchronized Set<Sensor> getSensors() {
+        return sensors.values();
+    }
+
+    @Override
+    public synchronized List<Sensor> getSensorsInDisplayOrder() {
+        return sensors.displayOrder();
+    }
+
+    @Override
+    public synchronized int activeSensorCount() {
+        return sensors.activeCount();
+    }
+
+    @Override
+    public synchronized boolean hasActiveSensors() {
+        return sensors.activeCount() > 0;
+    }
+
+    @Override
+    public synchronized AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    @Override
+    public synchronized ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    /**
+     * Pending changes taken out of the queue in one step. Must be created while holding the
+     * repository lock.
+     */
+    private class Batch {
+        private final Map<UUID, Sensor> adds = pendingAdds;
+        private final Map<UUID, Sensor> updates = pendingUpdates;
+        private final Map<UUID, Sensor> removals = pendingRemovals;
+        private final AlarmStatus alarm = pendingAlarmStatus;
+        private final ArmingStatus arming = pendingArmingStatus;
+
+        private Batch() {
+            pendingAdds = new LinkedHashMap<>();
+            pendingUpdates = new LinkedHashMap<>();
+            pendingRemovals = new LinkedHashMap<>();
+            pendingAlarmStatus = null;
+            pendingArmingStatus = null;
+        }
+
+        private void writeTo(SecurityRepository target) {
+            removals.values().forEach(target::removeSensor);
+            adds.values().forEach(target::addSensor);
+            if (!updates.isEmpty()) {
+                target.updateSensors(new ArrayList<>(updates.values()));
+            }
+            if (alarm != null) {
+                target.setAlarmStatus(alarm);
+            }
+            if (arming != null) {
+                target.setArmingStatus(arming);
+            }
+        }
+
+        /**
+         * Puts the batch back in front of anything queued since, without overriding newer writes.
+         */
+        private void requeue() {
+            removals.forEach((id, s) -> {
+                if (!pendingAdds.containsKey(id) && !pendingUpdates.containsKey(id)) {
+                    pendingRemovals.putIfAbsent(id, s);
+                }
+            });
+            adds.forEach((id, s) -> {
+                if (!pendingRemovals.containsKey(id)) {
+                    pendingAdds.putIfAbsent(id, pendingUpdates.containsKey(id) ? pendingUpdates.remove(id) : s);
+                }
+            });
+            updates.forEach((id, s) -> {
+                if (!pendingRemovals.containsKey(id) && !pendingAdds.containsKey(id)) {
+                    pendingUpdates.putIfAbsent(id, s);
+                }
+            });
+            if (pendingAlarmStatus == null) {
+                pendingAlarmStatus = alarm;
+            }
+            if (pendingArmingStatus == null) {
+                pendingArmingStatus = arming;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.AlarmStatus;
+import com.udacity.catpoint.data.ArmingStatus;
+
+/**
+ * Alarm transition rules as one table indexed by arming status, alarm status and event. The
+ * table is filled once from {@link #rule}; evaluating an event afterwards is a single array
+ * lookup with no branching on the current state.
+ */
+public final class AlarmStateMachine {
+
+    /**
+     * Everything that can move the alarm status. Conditions the rules depend on, such as whether
+     * other sensors are still active, are folded into the event so the lookup needs nothing else.
+     */
+    public enum Event {
+        /** A sensor went from inactive to active. */
+        SENSOR_ACTIVATED,
+        /** An already active sensor reported active again. */
+        SENSOR_REACTIVATED,
+        /** A sensor went inactive while other sensors are still active. */
+        SENSOR_DEACTIVATED,
+        /** A sensor went inactive and no sensor is active any more. */
+        LAST_SENSOR_DEACTIVATED,
+        /** An inactive sensor reported inactive again. */
+        SENSOR_STILL_INACTIVE,
+        CAT_DETECTED,
+        /** The camera stopped seeing a cat while some sensor is active. */
+        CAT_CLEARED_SENSORS_ACTIVE,
+        /** The camera stopped seeing a cat and no sensor is active. */
+        CAT_CLEARED,
+        DISARM,
+        /** Arming while no cat is in view, or arming away. */
+        ARM,
+        /** Arming home while the camera shows a cat. */
+        ARM_HOME_WITH_CAT
+    }
+
+    private static final ArmingStatus[] ARMING_STATUSES = ArmingStatus.values();
+    private static final AlarmStatus[] ALARM_STATUSES = AlarmStatus.values();
+    private static final Event[] EVENTS = Event.values();
+
+    private static final AlarmStatus[] TABLE = new AlarmStatus[ARMING_STATUSES.length * ALARM_STATUSES.length * EVENTS.length];
+
+    //sensor events indexed by previous active, new active and any active afterwards, as bits 2, 1 and 0
+    private static final Event[] SENSOR_EVENTS = {
+            Event.SENSOR_STILL_INACTIVE, Event.SENSOR_STILL_INACTIVE,
+            Event.SENSOR_ACTIVATED, Event.SENSOR_ACTIVATED,
+            Event.LAST_SENSOR_DEACTIVATED, Event.SENSOR_DEACTIVATED,
+            Event.SENSOR_REACTIVATED, Event.SENSOR_REACTIVATED
+    };
+
+    static {
+        for (ArmingStatus armingStatus : ARMING_STATUSES) {
+            for (AlarmStatus alarmStatus : ALARM_STATUSES) {
+                for (Event event : EVENTS) {
+                    TABLE[index(armingStatus, alarmStatus, event)] = rule(armingStatus, alarmStatus, event);
+                }
+            }
+        }
+    }
+
+    private AlarmStateMachine() {
+    }
+
+    private static int index(ArmingStatus armingStatus, AlarmStatus alarmStatus, Event event) {
+        return (armingStatus.ordinal() * ALARM_STATUSES.length + alarmStatus.ordinal()) * EVENTS.length + event.ordinal();
+    }
+
+    /**
+     * The transition rules, used only to fill the table.
+     */
+    private static AlarmStatus rule(ArmingStatus armingStatus, AlarmStatus current, Event event) {
+        switch (event) {
+            case SENSOR_ACTIVATED:
+                if (armingStatus == ArmingStatus.DISARMED) {
+                    return current; // no problem if the system is disarmed
+                }
+                return current == AlarmStatus.NO_ALARM ? AlarmStatus.PENDING_ALARM : AlarmStatus.ALARM;
+            case SENSOR_REACTIVATED:
+                // if activation event occurs while already active and system is pending, escalate to alarm
+                return current == AlarmStatus.PENDING_ALARM ? AlarmStatus.ALARM : current;
+            case SENSOR_DEACTIVATED:
+                return current == AlarmStatus.ALARM ? AlarmStatus.PENDING_ALARM : current;
+            case LAST_SENSOR_DEACTIVATED:
+                if (current == AlarmStatus.PENDING_ALARM) {
+                    return AlarmStatus.NO_ALARM;
+                }
+                return current == AlarmStatus.ALARM ? AlarmStatus.PENDING_ALARM : current;
+            case CAT_DETECTED:
+                return armingStatus == ArmingStatus.ARMED_HOME ? AlarmStatus.ALARM : current;
+            case CAT_CLEARED:
+            case DISARM:
+                return AlarmStatus.NO_ALARM;
+            case ARM_HOME_WITH_CAT:
+                return AlarmStatus.ALARM;
+            case SENSOR_STILL_INACTIVE:
+            case CAT_CLEARED_SENSORS_ACTIVE:
+            case ARM:
+            default:
+                return current;
+        }
+    }
+
+    /**
+     * Returns the alarm status after the event; the same status if the event changes nothing.
+     */
+    public static AlarmStatus next(ArmingStatus armingStatus, AlarmStatus alarmStatus, Event event) {
+        return TABLE[index(armingStatus, alarmStatus, event)];
+    }
+
+    /**
+     * Classifies a sensor report.
+     * @param activeAfter whether any sensor is active once the report is applied
+     */
+    public static Event sensorEvent(boolean previousActive, boolean active, boolean activeAfter) {
+        return SENSOR_EVENTS[(previousActive ? 4 : 0) | (active ? 2 : 0) | (activeAfter ? 1 : 0)];
+    }
+}
@@ -0,0 +1,40 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.AlarmStatus;
+
+import java.util.function.Predicate;
+
+/**
+ * The alarm status was set. {@link #getPrevious()} equals {@link #getCurrent()} when it was set
+ * to the value it already had.
+ */
+public final class AlarmStatusEvent implements SecurityEvent {
+
+    private final AlarmStatus previous;
+    private final AlarmStatus current;
+
+    public AlarmStatusEvent(AlarmStatus previous, AlarmStatus current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public AlarmStatus getPrevious() {
+        return previous;
+    }
+
+    public AlarmStatus getCurrent() {
+        return current;
+    }
+
+    /**
+     * Filter for transitions into the given status, e.g. {@code AlarmStatusEvent.into(AlarmStatus.ALARM)}.
+     */
+    public static Predicate<AlarmStatusEvent> into(AlarmStatus status) {
+        return e -> e.current == status && e.previous != status;
+    }
+
+    @Override
+    public String toString() {
+        return "AlarmStatusEvent{" + previous + " -> " + current + "}";
+    }
+}
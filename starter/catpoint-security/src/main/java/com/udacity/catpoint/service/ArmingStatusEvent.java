@@ -0,0 +1,30 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.ArmingStatus;
+
+/**
+ * The system was armed or disarmed.
+ */
+public final class ArmingStatusEvent implements SecurityEvent {
+
+    private final ArmingStatus previous;
+    private final ArmingStatus current;
+
+    public ArmingStatusEvent(ArmingStatus previous, ArmingStatus current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public ArmingStatus getPrevious() {
+        return previous;
+    }
+
+    public ArmingStatus getCurrent() {
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return "ArmingStatusEvent{" + previous + " -> " + current + "}";
+    }
+}
@@ -0,0 +1,292 @@
+package com.udacity.catpoint.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.udacity.catpoint.application.StatusListener;
+import com.udacity.catpoint.data.AlarmStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers notifications to a listener from its own bounded queue, so the thread that changes
+ * the system state only pays for an enqueue and a slow listener delays nobody but itself.
+ * Notifications reach the listener one at a time and in order, apart from what the
+ * {@link OverflowPolicy} drops or merges.
+ *
+ * Sensor notifications carry the ids of the changed sensors; merging two of them merges the
+ * ids, and a plain {@link #sensorStatusChanged()} stands for "all sensors". With a coalescing
+ * window, sensor notifications wait outside the queue until the window closes.
+ */
+public final class AsyncStatusListener implements StatusListener, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncStatusListener.class);
+
+    //notifications delivered per executor task, so a shared executor is not monopolized
+    private static final int MAX_DRAIN_BATCH = 64;
+
+    //closes coalescing windows for every listener; only ever enqueues, so one thread is enough
+    private static final ScheduledExecutorService WINDOW_TIMER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("catpoint-listener-window")
+                    .setDaemon(true)
+                    .build());
+
+    private enum Kind { ALARM, CAT, SENSORS }
+
+    private static final class Notification {
+        private final Kind kind;
+        private Object value;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private Notification(Kind kind, Object value) {
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+
+    private final StatusListener delegate;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final long coalescingWindowNanos;
+
+    private final Deque<Notification> queue = new ArrayDeque<>();
+    //queued notification of each kind, used to coalesce
+    private final Notification[] pendingByKind = new Notification[Kind.values().length];
+    private boolean draining;
+    private boolean closed;
+    //sensor changes collected while a coalescing window is open; null inside an open window means all sensors
+    private boolean windowOpen;
+    private Set<UUID> windowSensorIds;
+
+    private long delivered;
+    private long dropped;
+    private long coalesced;
+    private long lastLagNanos;
+    private long maxLagNanos;
+
+    public AsyncStatusListener(StatusListener delegate, DispatchOptions options) {
+        this.delegate = delegate;
+        this.capacity = options.getCapacity();
+        this.overflowPolicy = options.getOverflowPolicy();
+        this.coalescingWindowNanos = options.getCoalescingWindow().toNanos();
+        if (options.getExecutor() != null) {
+            this.executor = options.getExecutor();
+            this.ownedExecutor = null;
+        } else {
+            this.ownedExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("catpoint-listener-" + delegate.getClass().getSimpleName())
+                    .setDaemon(true)
+                    .build());
+            this.executor = ownedExecutor;
+        }
+    }
+
+    public StatusListener getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void notify(AlarmStatus status) {
+        enqueue(Kind.ALARM, status);
+    }
+
+    @Override
+    public void catDetected(boolean catDetected) {
+        enqueue(Kind.CAT, catDetected);
+    }
+
+    @Override
+    public void sensorStatusChanged() {
+        sensorNotification(null);
+    }
+
+    @Override
+    public void sensorsChanged(Set<UUID> sensorIds) {
+        sensorNotification(new HashSet<>(sensorIds));
+    }
+
+    /**
+     * @param sensorIds a set owned by this listener, or null for all sensors
+     */
+    private void sensorNotification(Set<UUID> sensorIds) {
+        if (coalescingWindowNanos <= 0) {
+            enqueue(Kind.SENSORS, sensorIds);
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (windowOpen) {
+                windowSensorIds = mergeSensorIds(windowSensorIds, sensorIds);
+                coalesced++;
+                return;
+            }
+            windowOpen = true;
+            windowSensorIds = sensorIds;
+        }
+        WINDOW_TIMER.schedule(this::closeWindow, coalescingWindowNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void closeWindow() {
+        Set<UUID> sensorIds;
+        synchronized (this) {
+            sensorIds = windowSensorIds;
+            windowSensorIds = null;
+            windowOpen = false;
+        }
+        enqueue(Kind.SENSORS, sensorIds);
+    }
+
+    private static Set<UUID> mergeSensorIds(Set<UUID> pending, Set<UUID> added) {
+        if (pending == null || added == null) {
+            return null;
+        }
+        pending.addAll(added);
+        return pending;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void enqueue(Kind kind, Object value) {
+        boolean schedule;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            Notification pending = pendingByKind[kind.ordinal()];
+            if (overflowPolicy == OverflowPolicy.COALESCE_LATEST && pending != null) {
+                pending.value = kind == Kind.SENSORS ? mergeSensorIds((Set<UUID>) pending.value, (Set<UUID>) value) : value;
+                coalesced++;
+                return;
+            }
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                while (queue.size() >= capacity && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        dropped++;
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+            } else if (queue.size() >= capacity) {
+                //also the fallback for coalescing queues smaller than the number of kinds
+                Notification oldest = queue.poll();
+                if (pendingByKind[oldest.kind.ordinal()] == oldest) {
+                    pendingByKind[oldest.kind.ordinal()] = null;
+                }
+                dropped++;
+            }
+            Notification notification = new Notification(kind, value);
+            queue.add(notification);
+            if (overflowPolicy == OverflowPolicy.COALESCE_LATEST) {
+                pendingByKind[kind.ordinal()] = notification;
+            }
+            schedule = !draining;
+            draining = true;
+        }
+        if (schedule) {
+            submitDrain();
+        }
+    }
+
+    private void submitDrain() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropping notifications for {}, executor rejected them", delegate, e);
+            synchronized (this) {
+                dropped += queue.size();
+                queue.clear();
+                Arrays.fill(pendingByKind, null);
+                draining = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private void drain() {
+        for (int i = 0; i < MAX_DRAIN_BATCH; i++) {
+            Notification notification;
+            synchronized (this) {
+                notification = queue.poll();
+                if (notification == null) {
+                    draining = false;
+                    return;
+                }
+                if (pendingByKind[notification.kind.ordinal()] == notification) {
+                    pendingByKind[notification.kind.ordinal()] = null;
+                }
+                lastLagNanos = System.nanoTime() - notification.enqueuedNanos;
+                maxLagNanos = Math.max(maxLagNanos, lastLagNanos);
+                delivered++;
+                notifyAll();
+            }
+            deliver(notification);
+        }
+        //more left; yield the executor and continue in a fresh task
+        submitDrain();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(Notification notification) {
+        try {
+            switch (notification.kind) {
+                case ALARM:
+                    delegate.notify((AlarmStatus) notification.value);
+                    break;
+                case CAT:
+                    delegate.catDetected((Boolean) notification.value);
+                    break;
+                case SENSORS:
+                    if (notification.value == null) {
+                        delegate.sensorStatusChanged();
+                    } else {
+                        delegate.sensorsChanged(Collections.unmodifiableSet((Set<UUID>) notification.value));
+                    }
+                    break;
+            }
+        } catch (RuntimeException e) {
+            log.error("Status listener {} failed", delegate, e);
+        }
+    }
+
+    public synchronized ListenerMetrics getMetrics() {
+        return new ListenerMetrics(delivered, dropped, coalesced, queue.size(), lastLagNanos, maxLagNanos);
+    }
+
+    /**
+     * Discards queued notifications and stops the listener's own thread, if it has one.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+            windowSensorIds = null;
+            notifyAll();
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+}
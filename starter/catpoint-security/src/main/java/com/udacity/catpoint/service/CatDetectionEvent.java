@@ -0,0 +1,22 @@
+package com.udacity.catpoint.service;
+
+/**
+ * A camera image was classified.
+ */
+public final class CatDetectionEvent implements SecurityEvent {
+
+    private final boolean catDetected;
+
+    public CatDetectionEvent(boolean catDetected) {
+        this.catDetected = catDetected;
+    }
+
+    public boolean isCatDetected() {
+        return catDetected;
+    }
+
+    @Override
+    public String toString() {
+        return "CatDetectionEvent{catDetected=" + catDetected + "}";
+    }
+}
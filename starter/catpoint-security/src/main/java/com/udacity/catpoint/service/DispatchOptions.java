@@ -0,0 +1,74 @@
+package com.udacity.catpoint.service;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * How notifications are handed to a listener registered with
+ * {@link SecurityService#addStatusListener(com.udacity.catpoint.application.StatusListener, DispatchOptions)}:
+ * the size of its private queue, what happens when that queue is full, and where the listener
+ * runs. Without an executor each listener gets a thread of its own.
+ *
+ * With a coalescing window, sensor change notifications are held for that long and delivered
+ * as one {@link com.udacity.catpoint.application.StatusListener#sensorsChanged} call covering
+ * every sensor that changed in the meantime.
+ */
+public final class DispatchOptions {
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final Duration coalescingWindow;
+
+    private DispatchOptions(int capacity, OverflowPolicy overflowPolicy, Executor executor, Duration coalescingWindow) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.coalescingWindow = coalescingWindow;
+    }
+
+    public static DispatchOptions queued(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        return new DispatchOptions(capacity, overflowPolicy, null, Duration.ZERO);
+    }
+
+    /**
+     * Runs the listener on the given executor instead of a dedicated thread, for example
+     * {@code SwingUtilities::invokeLater}. Notifications are still delivered one at a time.
+     */
+    public DispatchOptions withExecutor(Executor executor) {
+        return new DispatchOptions(capacity, overflowPolicy, executor, coalescingWindow);
+    }
+
+    /**
+     * Merges sensor change notifications arriving within the window, for example 16 ms to
+     * refresh a display at most once per frame.
+     */
+    public DispatchOptions withCoalescingWindow(Duration coalescingWindow) {
+        if (coalescingWindow.isNegative()) {
+            throw new IllegalArgumentException("coalescingWindow must not be negative");
+        }
+        return new DispatchOptions(capacity, overflowPolicy, executor, coalescingWindow);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return the executor, or null if the listener gets its own thread
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public Duration getCoalescingWindow() {
+        return coalescingWindow;
+    }
+}
@@ -0,0 +1,117 @@
+package com.udacity.catpoint.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs image scans off the caller's thread with a fixed limit on how many run at once and how
+ * many may wait. Uses a virtual thread per scan when the runtime has them, with a semaphore
+ * capping concurrency, and otherwise a fixed pool of platform threads.
+ *
+ * Completing or cancelling a returned future early, for example through a timeout, interrupts
+ * the scan behind it.
+ */
+final class ImageScanExecutor implements AutoCloseable {
+
+    private final ExecutorService executor;
+    //only used with virtual threads; the fixed pool bounds concurrency by itself
+    private final Semaphore running;
+    private final int maxOutstanding;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    ImageScanExecutor(int maxConcurrent, int maxQueued) {
+        if (maxConcurrent <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive and maxQueued not negative");
+        }
+        ExecutorService virtual = virtualThreadExecutor();
+        if (virtual != null) {
+            this.executor = virtual;
+            this.running = new Semaphore(maxConcurrent);
+        } else {
+            this.executor = Executors.newFixedThreadPool(maxConcurrent, new ThreadFactoryBuilder()
+                    .setNameFormat("catpoint-image-scan-%d")
+                    .setDaemon(true)
+                    .build());
+            this.running = null;
+        }
+        this.maxOutstanding = maxConcurrent + maxQueued;
+    }
+
+    /**
+     * Java 21 adds virtual threads; look them up reflectively so the code still targets Java 11.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts a scan, or returns a failed future with {@link RejectedExecutionException} if the
+     * queue is full.
+     */
+    <T> CompletableFuture<T> submit(Callable<T> scan) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (outstanding.incrementAndGet() > maxOutstanding) {
+            outstanding.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException("Too many image scans waiting"));
+            return result;
+        }
+        Future<?> task;
+        try {
+            task = executor.submit(() -> run(scan, result));
+        } catch (RejectedExecutionException e) {
+            outstanding.decrementAndGet();
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, failure) -> {
+            outstanding.decrementAndGet();
+            if (!task.isDone()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private <T> void run(Callable<T> scan, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            if (running != null) {
+                running.acquire();
+            }
+            try {
+                result.complete(scan.call());
+            } finally {
+                if (running != null) {
+                    running.release();
+                }
+            }
+        } catch (InterruptedException ie) {
+            result.cancel(true);
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
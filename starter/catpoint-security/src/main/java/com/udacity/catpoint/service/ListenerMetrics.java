@@ -0,0 +1,54 @@
+package com.udacity.catpoint.service;
+
+/**
+ * Point in time counters for one asynchronous listener. Lag is the time a notification waited
+ * in the listener's queue before the listener started handling it.
+ */
+public final class ListenerMetrics {
+
+    private final long delivered;
+    private final long dropped;
+    private final long coalesced;
+    private final int queueDepth;
+    private final long lastLagNanos;
+    private final long maxLagNanos;
+
+    ListenerMetrics(long delivered, long dropped, long coalesced, int queueDepth, long lastLagNanos, long maxLagNanos) {
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.queueDepth = queueDepth;
+        this.lastLagNanos = lastLagNanos;
+        this.maxLagNanos = maxLagNanos;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getLastLagNanos() {
+        return lastLagNanos;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ListenerMetrics{delivered=" + delivered + ", dropped=" + dropped + ", coalesced=" + coalesced
+                + ", queueDepth=" + queueDepth + ", lastLagNanos=" + lastLagNanos + ", maxLagNanos=" + maxLagNanos + "}";
+    }
+}
@@ -0,0 +1,89 @@
+package com.udacity.catpoint.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producer threads and a single consumer thread.
+ *
+ * Every slot carries a sequence number telling whose turn it is: a producer may fill slot
+ * {@code i} when its sequence equals the producer's claimed position, and the consumer may take
+ * it once the sequence is one past that position. Producers claim positions with a CAS on the
+ * tail; the consumer owns the head outright and needs no atomic update.
+ */
+final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    //only touched by the consumer thread
+    private long head;
+
+    MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two of at least 2");
+        }
+        mask = capacity - 1;
+        elements = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * Adds an element unless the buffer is full. Safe to call from any thread.
+     * @return false if the buffer was full
+     */
+    boolean offer(E element) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                //slot still holds an element from the previous lap
+                return false;
+            }
+            //another producer claimed this position first; retry with the new tail
+        }
+        elements[index] = element;
+        //volatile write publishes the element to the consumer
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element, or returns null if there is none. Consumer thread only.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E element = (E) elements[index];
+        elements[index] = null;
+        //hand the slot back to producers for the next lap
+        sequences.lazySet(index, head + elements.length);
+        head++;
+        return element;
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
@@ -0,0 +1,19 @@
+package com.udacity.catpoint.service;
+
+/**
+ * What an asynchronous listener queue does when a notification arrives and the queue is full.
+ */
+public enum OverflowPolicy {
+    /** Discard the oldest queued notification to make room. */
+    DROP_OLDEST,
+    /**
+     * Keep at most one pending notification of each kind, replacing its value with the newest
+     * one. The queue never fills up because there are only a few kinds.
+     */
+    COALESCE_LATEST,
+    /**
+     * Make the notifying thread wait for room. Never use this with an executor that runs on
+     * the notifying thread, such as the Swing event thread when the service is driven from it.
+     */
+    BLOCK
+}
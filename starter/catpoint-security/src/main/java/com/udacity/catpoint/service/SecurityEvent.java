@@ -0,0 +1,8 @@
+package com.udacity.catpoint.service;
+
+/**
+ * Something that happened in the security system and can be subscribed to with
+ * {@link SecurityService#subscribe}. Each kind of event is its own final class.
+ */
+public interface SecurityEvent {
+}
@@ -0,0 +1,66 @@
+package com.udacity.catpoint.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Delivers events to the consumers subscribed to their exact class. Each event class has its
+ * own subscriber list, so publishing only visits consumers that asked for that kind of event,
+ * and publishers can skip building events nobody wants.
+ */
+final class SecurityEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEventDispatcher.class);
+
+    private final ConcurrentMap<Class<?>, List<Subscriber<?>>> subscribers = new ConcurrentHashMap<>();
+
+    private static final class Subscriber<E> {
+        private final Predicate<? super E> filter;
+        private final Consumer<? super E> consumer;
+
+        private Subscriber(Predicate<? super E> filter, Consumer<? super E> consumer) {
+            this.filter = filter;
+            this.consumer = consumer;
+        }
+
+        private void deliver(E event) {
+            try {
+                if (filter.test(event)) {
+                    consumer.accept(event);
+                }
+            } catch (RuntimeException e) {
+                log.error("Subscriber failed on {}", event, e);
+            }
+        }
+    }
+
+    <E extends SecurityEvent> Subscription subscribe(Class<E> type, Predicate<? super E> filter, Consumer<? super E> consumer) {
+        Subscriber<E> subscriber = new Subscriber<>(filter, consumer);
+        List<Subscriber<?>> list = subscribers.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>());
+        list.add(subscriber);
+        return () -> list.remove(subscriber);
+    }
+
+    boolean hasSubscribers(Class<? extends SecurityEvent> type) {
+        List<Subscriber<?>> list = subscribers.get(type);
+        return list != null && !list.isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    <E extends SecurityEvent> void publish(E event) {
+        List<Subscriber<?>> list = subscribers.get(event.getClass());
+        if (list == null) {
+            return;
+        }
+        for (Subscriber<?> subscriber : list) {
+            ((Subscriber<E>) subscriber).deliver(event);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.udacity.catpoint.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.udacity.catpoint.application.StatusListener;
+import com.udacity.catpoint.data.ArmingStatus;
+import com.udacity.catpoint.data.Sensor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer front end for a {@link SecurityService}. Inputs from any thread are queued as
+ * events on a bounded lock-free ring buffer and applied one at a time, in arrival order, by a
+ * dedicated owner thread, so the service itself never sees concurrent calls.
+ *
+ * Image classification runs on the calling thread and only its result is queued, so a slow
+ * image service never holds up sensor events. Status listeners are called on the owner thread.
+ * When the buffer is full, producers back off briefly until the owner catches up.
+ */
+public class SecurityEventLoop implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEventLoop.class);
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long FULL_BACKOFF_NANOS = 50_000;
+
+    private final SecurityService securityService;
+    private final MpscRingBuffer<Runnable> events;
+    private final Thread owner;
+    private volatile boolean running = true;
+    //set by the owner before parking so producers know to wake it
+    private volatile boolean sleeping;
+
+    public SecurityEventLoop(SecurityService securityService) {
+        this(securityService, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximum number of queued events, a power of two
+     */
+    public SecurityEventLoop(SecurityService securityService, int capacity) {
+        this.securityService = securityService;
+        this.events = new MpscRingBuffer<>(capacity);
+        this.owner = new ThreadFactoryBuilder()
+                .setNameFormat("catpoint-event-loop")
+                .setDaemon(true)
+                .build()
+                .newThread(this::run);
+        owner.start();
+    }
+
+    private void run() {
+        while (running || !events.isEmpty()) {
+            Runnable event = events.poll();
+            if (event != null) {
+                apply(event);
+                continue;
+            }
+            sleeping = true;
+            //re-check after publishing the flag, a producer may have enqueued in between
+            if (running && events.isEmpty()) {
+                LockSupport.park(this);
+            }
+            sleeping = false;
+        }
+    }
+
+    private static void apply(Runnable event) {
+        try {
+            event.run();
+        } catch (RuntimeException e) {
+            log.error("Security event failed", e);
+        }
+    }
+
+    /**
+     * Queues the event. When the owner thread itself finds the buffer full, for example from a
+     * status listener, it applies the oldest queued event to make room instead of waiting on
+     * itself, which keeps arrival order.
+     */
+    private void enqueue(Runnable event) {
+        boolean onOwner = Thread.currentThread() == owner;
+        do {
+            if (!running) {
+                throw new RejectedExecutionException("Security event loop is closed");
+            }
+            if (events.offer(event)) {
+                break;
+            }
+            if (onOwner) {
+                Runnable oldest = events.poll();
+                if (oldest != null) {
+                    apply(oldest);
+                }
+                continue;
+            }
+            LockSupport.unpark(owner);
+            LockSupport.parkNanos(FULL_BACKOFF_NANOS);
+        } while (true);
+        if (sleeping) {
+            LockSupport.unpark(owner);
+        }
+        if (!running && !onOwner) {
+            drainAfterClose();
+        }
+    }
+
+    /**
+     * Runs events that were offered while the loop was closing and that the owner thread may
+     * have missed on its way out.
+     */
+    private void drainAfterClose() {
+        boolean interrupted = false;
+        while (owner.isAlive()) {
+            try {
+                owner.join();
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        //the buffer has a single consumer; producers take turns once the owner is gone
+        synchronized (events) {
+            Runnable event;
+            while ((event = events.poll()) != null) {
+                apply(event);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void changeSensorActivationStatus(Sensor sensor, Boolean active) {
+        enqueue(() -> securityService.changeSensorActivationStatus(sensor, active));
+    }
+
+    public void setArmingStatus(ArmingStatus armingStatus) {
+        enqueue(() -> securityService.setArmingStatus(armingStatus));
+    }
+
+    /**
+     * Classifies the image on the calling thread and queues the result.
+     */
+    public void processImage(BufferedImage currentCameraImage) {
+        boolean cat = securityService.imageContainsCat(currentCameraImage);
+        enqueue(() -> securityService.catDetected(cat));
+    }
+
+    public void addSensor(Sensor sensor) {
+        enqueue(() -> securityService.addSensor(sensor));
+    }
+
+    public void removeSensor(Sensor sensor) {
+        enqueue(() -> securityService.removeSensor(sensor));
+    }
+
+    public void addStatusListener(StatusListener statusListener) {
+        enqueue(() -> securityService.addStatusListener(statusListener));
+    }
+
+    public void removeStatusListener(StatusListener statusListener) {
+        enqueue(() -> securityService.removeStatusListener(statusListener));
+    }
+
+    /**
+     * Returns a future that completes once every event queued before this call has been applied.
+     */
+    public CompletableFuture<Void> barrier() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        enqueue(() -> done.complete(null));
+        return done;
+    }
+
+    /**
+     * Applies the events already queued, then stops the owner thread. Events offered afterwards
+     * are rejected; an event that was being offered while the loop closed is still applied, on
+     * the thread that offered it.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(owner);
+        if (Thread.currentThread() == owner) {
+            return;
+        }
+        try {
+            owner.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
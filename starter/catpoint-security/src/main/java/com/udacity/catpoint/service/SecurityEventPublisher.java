@@ -0,0 +1,101 @@
+package com.udacity.catpoint.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Flow.Publisher} of every {@link SecurityEvent}, for pipelines that need backpressure.
+ * Each subscriber gets its own bounded buffer and is only sent as many events as it has
+ * requested. When a subscriber's buffer is full the security service waits up to
+ * {@code maxBlock} for room, which slows publishing down to the pace of the subscriber, and then
+ * drops the event for that subscriber, so a stalled pipeline costs a bounded amount of memory
+ * and never holds the service up indefinitely. Drops are logged as warnings, at most once per
+ * interval, and counted by {@link #getDropped()}.
+ */
+public class SecurityEventPublisher implements Flow.Publisher<SecurityEvent>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEventPublisher.class);
+
+    private static final int DEFAULT_BUFFER_CAPACITY = 256;
+    private static final Duration DEFAULT_MAX_BLOCK = Duration.ofMillis(100);
+    private static final long DROP_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final ExecutorService executor;
+    private final SubmissionPublisher<SecurityEvent> publisher;
+    private final long maxBlockNanos;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong nextDropWarning = new AtomicLong(System.nanoTime());
+
+    public SecurityEventPublisher() {
+        this(DEFAULT_BUFFER_CAPACITY, DEFAULT_MAX_BLOCK);
+    }
+
+    /**
+     * @param bufferCapacity events buffered per subscriber, rounded up to a power of two
+     * @param maxBlock how long publishing may wait for a full buffer before dropping the event;
+     *                 zero drops at once
+     */
+    public SecurityEventPublisher(int bufferCapacity, Duration maxBlock) {
+        this.executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("catpoint-event-publisher-%d")
+                .setDaemon(true)
+                .build());
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.maxBlockNanos = maxBlock.toNanos();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SecurityEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public boolean hasSubscribers() {
+        return publisher.hasSubscribers();
+    }
+
+    void publish(SecurityEvent event) {
+        publisher.offer(event, maxBlockNanos, TimeUnit.NANOSECONDS, (subscriber, item) -> {
+            long total = dropped.incrementAndGet();
+            long now = System.nanoTime();
+            long next = nextDropWarning.get();
+            if (now - next >= 0 && nextDropWarning.compareAndSet(next, now + DROP_WARNING_INTERVAL_NANOS)) {
+                log.warn("Dropped {} for slow subscriber {}, {} events dropped so far", item, subscriber, total);
+            } else {
+                log.debug("Dropped {} for slow subscriber {}", item, subscriber);
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Number of events dropped because a subscriber's buffer stayed full, summed over subscribers.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Largest number of events delivered but not yet consumed by any one subscriber.
+     */
+    public int estimateMaximumLag() {
+        return publisher.estimateMaximumLag();
+    }
+
+    /**
+     * Completes every subscription once its buffered events are delivered.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+        executor.shutdown();
+    }
+}
@@ -1,6 +1,7 @@
 package com.udacity.catpoint.service;
 
 import com.udacity.catpoint.application.StatusListener;
+import com.udacity.catpoint.image.service.DetectionResult;
 import com.udacity.catpoint.image.service.ImageService;
 import com.udacity.catpoint.data.AlarmStatus;
 import com.udacity.catpoint.data.ArmingStatus;
@@ -8,20 +9,53 @@ import com.udacity.catpoint.data.SecurityRepository;
 import com.udacity.catpoint.data.Sensor;
 
 import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Service that receives information about changes to the security system. Responsible for
  * forwarding updates to the repository and making any decisions about changing the system state.
+ *
+ * Image scan threads, the event publisher and asynchronous listeners are started on first use;
+ * {@link #close()} stops them.
  */
-public class SecurityService {
+public class SecurityService implements AutoCloseable {
 
     private ImageService imageService;
     private SecurityRepository securityRepository;
     private Set<StatusListener> statusListeners = new HashSet<>();
+    private Map<StatusListener, AsyncStatusListener> asyncListeners = new HashMap<>();
+    private final SecurityEventDispatcher events = new SecurityEventDispatcher();
+    private SecurityEventPublisher eventPublisher;
     private boolean catCurrentlyDetected = false;
 
+    private static final float DEFAULT_CAT_CONFIDENCE_THRESHOLD = 50.0f;
+    private volatile float catConfidenceThreshold = DEFAULT_CAT_CONFIDENCE_THRESHOLD;
+
+    //asynchronous image scans; results are applied in submission order under scanLock
+    private static final Duration DEFAULT_SCAN_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_CONCURRENT_SCANS = 2;
+    private static final int MAX_QUEUED_SCANS = 4;
+    private final Object scanLock = new Object();
+    private ImageScanExecutor imageScans;
+    private long submittedScans;
+    private long appliedScan;
+    private CompletableFuture<Boolean> latestScan;
+    private volatile boolean closed;
+
     public SecurityService(SecurityRepository securityRepository, ImageService imageService) {
         this.securityRepository = securityRepository;
         this.imageService = imageService;
@@ -29,103 +63,306 @@ public class SecurityService {
 
     public void setArmingStatus(ArmingStatus armingStatus) {
         if (armingStatus == ArmingStatus.DISARMED) {
-            setAlarmStatus(AlarmStatus.NO_ALARM);
+            applyEvent(AlarmStateMachine.Event.DISARM);
             // clear any previously detected cat when disarmed
             catCurrentlyDetected = false;
         } else {
-            // when arming the system, reset all sensors to inactive
-            new java.util.ArrayList<>(securityRepository.getSensors()).forEach(s -> {
-                s.setActive(Boolean.FALSE);
-                securityRepository.updateSensor(s);
-            });
-            // notify listeners that sensor statuses changed due to arming
-            statusListeners.forEach(sl -> sl.sensorStatusChanged());
-            // if arming to HOME and a cat was recently detected, set ALARM
-            if (armingStatus == ArmingStatus.ARMED_HOME && catCurrentlyDetected) {
-                setAlarmStatus(AlarmStatus.ALARM);
+            // when arming the system, reset all sensors to inactive and persist them in one batch
+            List<Sensor> deactivated = securityRepository.getSensors().stream()
+                    .filter(Sensor::getActive)
+                    .collect(Collectors.toList());
+            deactivated.forEach(s -> s.setActive(Boolean.FALSE));
+            if (!deactivated.isEmpty()) {
+                securityRepository.updateSensors(deactivated);
+                // notify listeners that sensor statuses changed due to arming
+                notifySensorsChanged(deactivated);
             }
+            // if arming to HOME and a cat was recently detected, set ALARM
+            applyEvent(armingStatus == ArmingStatus.ARMED_HOME && catCurrentlyDetected
+                    ? AlarmStateMachine.Event.ARM_HOME_WITH_CAT
+                    : AlarmStateMachine.Event.ARM);
         }
+        ArmingStatus previous = securityRepository.getArmingStatus();
         securityRepository.setArmingStatus(armingStatus);
+        if (wants(ArmingStatusEvent.class)) {
+            publish(new ArmingStatusEvent(previous, armingStatus));
+        }
     }
 
-    private void catDetected(Boolean cat) {
+    void catDetected(Boolean cat) {
         catCurrentlyDetected = cat;
-        if (cat && getArmingStatus() == ArmingStatus.ARMED_HOME) {
-            setAlarmStatus(AlarmStatus.ALARM);
-        } else if (!cat) {
+        if (cat) {
+            applyEvent(AlarmStateMachine.Event.CAT_DETECTED);
+        } else {
             // only set NO_ALARM if no sensors are active
-            boolean anyActive = securityRepository.getSensors().stream().anyMatch(Sensor::getActive);
-            if (!anyActive) {
-                setAlarmStatus(AlarmStatus.NO_ALARM);
-            }
+            applyEvent(securityRepository.hasActiveSensors()
+                    ? AlarmStateMachine.Event.CAT_CLEARED_SENSORS_ACTIVE
+                    : AlarmStateMachine.Event.CAT_CLEARED);
         }
 
         statusListeners.forEach(sl -> sl.catDetected(cat));
+        if (wants(CatDetectionEvent.class)) {
+            publish(new CatDetectionEvent(cat));
+        }
+    }
+
+    /**
+     * Delivers every event of the given type to the consumer, on the thread that caused it.
+     */
+    public <E extends SecurityEvent> Subscription subscribe(Class<E> type, Consumer<? super E> consumer) {
+        return events.subscribe(type, e -> true, consumer);
+    }
+
+    /**
+     * Delivers the events of the given type that pass the filter, e.g.
+     * {@code subscribe(AlarmStatusEvent.class, AlarmStatusEvent.into(AlarmStatus.ALARM), consumer)}.
+     * Consumers run on the thread that caused the event.
+     */
+    public <E extends SecurityEvent> Subscription subscribe(Class<E> type, Predicate<? super E> filter, Consumer<? super E> consumer) {
+        return events.subscribe(type, filter, consumer);
+    }
+
+    /**
+     * Returns the publisher that streams every event with backpressure, creating it on first use.
+     */
+    public SecurityEventPublisher getEventPublisher() {
+        if (eventPublisher == null) {
+            if (closed) {
+                throw new IllegalStateException("Security service is closed");
+            }
+            eventPublisher = new SecurityEventPublisher();
+        }
+        return eventPublisher;
+    }
+
+    private boolean wants(Class<? extends SecurityEvent> type) {
+        return events.hasSubscribers(type) || (eventPublisher != null && eventPublisher.hasSubscribers());
+    }
+
+    private void publish(SecurityEvent event) {
+        events.publish(event);
+        if (eventPublisher != null) {
+            eventPublisher.publish(event);
+        }
     }
 
     public void addStatusListener(StatusListener statusListener) {
         statusListeners.add(statusListener);
     }
 
+    /**
+     * Registers a listener that is notified from its own bounded queue instead of on the thread
+     * that changed the state, so it cannot slow down the others.
+     * @return the wrapper that delivers to the listener, for reading its metrics
+     */
+    public AsyncStatusListener addStatusListener(StatusListener statusListener, DispatchOptions options) {
+        AsyncStatusListener async = new AsyncStatusListener(statusListener, options);
+        AsyncStatusListener previous = asyncListeners.put(statusListener, async);
+        if (previous != null) {
+            statusListeners.remove(previous);
+            previous.close();
+        }
+        statusListeners.add(async);
+        return async;
+    }
+
     public void removeStatusListener(StatusListener statusListener) {
-        statusListeners.remove(statusListener);
+        AsyncStatusListener async = asyncListeners.remove(statusListener);
+        if (async != null) {
+            statusListeners.remove(async);
+            async.close();
+        } else {
+            statusListeners.remove(statusListener);
+        }
     }
 
     public void setAlarmStatus(AlarmStatus status) {
+        AlarmStatus previous = securityRepository.getAlarmStatus();
         securityRepository.setAlarmStatus(status);
         statusListeners.forEach(sl -> sl.notify(status));
+        if (wants(AlarmStatusEvent.class)) {
+            publish(new AlarmStatusEvent(previous, status));
+        }
     }
 
-    private void handleSensorActivated() {
-        if (securityRepository.getArmingStatus() == ArmingStatus.DISARMED) {
-            return; // no problem if the system is disarmed
-        }
-        AlarmStatus current = securityRepository.getAlarmStatus();
-        if (current == AlarmStatus.NO_ALARM) {
-            setAlarmStatus(AlarmStatus.PENDING_ALARM);
-        } else if (current == AlarmStatus.PENDING_ALARM) {
-            setAlarmStatus(AlarmStatus.ALARM);
+    private void notifySensorsChanged(List<Sensor> changed) {
+        Set<UUID> sensorIds = changed.stream().map(Sensor::getSensorId).collect(Collectors.toUnmodifiableSet());
+        statusListeners.forEach(sl -> sl.sensorsChanged(sensorIds));
+        if (wants(SensorStatusEvent.class)) {
+            publish(new SensorStatusEvent(changed));
         }
     }
 
-    private void handleSensorDeactivated() {
+    /**
+     * Looks up the transition for an event and, if the alarm status changes, persists it and
+     * tells listeners.
+     */
+    private void applyEvent(AlarmStateMachine.Event event) {
         AlarmStatus current = securityRepository.getAlarmStatus();
-        if (current == AlarmStatus.PENDING_ALARM) {
-            // only clear to NO_ALARM if no sensors are active
-            boolean anyActive = securityRepository.getSensors().stream().anyMatch(Sensor::getActive);
-            if (!anyActive) {
-                setAlarmStatus(AlarmStatus.NO_ALARM);
-            }
-        } else if (current == AlarmStatus.ALARM) {
-            setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        AlarmStatus next = AlarmStateMachine.next(securityRepository.getArmingStatus(), current, event);
+        if (next != current) {
+            setAlarmStatus(next);
         }
     }
 
     public void changeSensorActivationStatus(Sensor sensor, Boolean active) {
-        // update the sensor first so handlers see the new state
-        boolean previousActive = sensor.getActive();
-        if (previousActive == active) {
-            // if activation event occurs while already active and system is pending, escalate to alarm
-            if (active && securityRepository.getAlarmStatus() == AlarmStatus.PENDING_ALARM) {
-                setAlarmStatus(AlarmStatus.ALARM);
+        changeSensorActivationStatuses(Map.of(sensor, active));
+    }
+
+    /**
+     * Applies a burst of sensor events in the map's iteration order. The end state is the same as
+     * calling {@link #changeSensorActivationStatus(Sensor, Boolean)} for each entry, but changed
+     * sensors are persisted in one write, listeners hear about sensor changes once, and the alarm
+     * status is written and announced once if it ends up different.
+     */
+    public void changeSensorActivationStatuses(Map<Sensor, Boolean> changes) {
+        ArmingStatus armingStatus = securityRepository.getArmingStatus();
+        AlarmStatus initialAlarm = securityRepository.getAlarmStatus();
+        AlarmStatus alarm = initialAlarm;
+        int activeCount = securityRepository.activeSensorCount();
+        List<Sensor> changed = new ArrayList<>(changes.size());
+
+        for (Map.Entry<Sensor, Boolean> change : changes.entrySet()) {
+            Sensor sensor = change.getKey();
+            boolean active = change.getValue();
+            boolean previousActive = sensor.getActive();
+            if (previousActive != active) {
+                sensor.setActive(active);
+                changed.add(sensor);
+                activeCount += active ? 1 : -1;
             }
-            return; // no state change
+            alarm = AlarmStateMachine.next(armingStatus, alarm,
+                    AlarmStateMachine.sensorEvent(previousActive, active, activeCount > 0));
         }
 
-        sensor.setActive(active);
-        securityRepository.updateSensor(sensor);
-        // notify listeners that a sensor status changed
-        statusListeners.forEach(sl -> sl.sensorStatusChanged());
-
-        if (!previousActive && active) {
-            handleSensorActivated();
-        } else if (previousActive && !active) {
-            handleSensorDeactivated();
+        if (!changed.isEmpty()) {
+            if (changed.size() == 1) {
+                securityRepository.updateSensor(changed.get(0));
+            } else {
+                securityRepository.updateSensors(changed);
+            }
+            // notify listeners that sensor statuses changed
+            notifySensorsChanged(changed);
+        }
+        if (alarm != initialAlarm) {
+            setAlarmStatus(alarm);
         }
     }
 
     public void processImage(BufferedImage currentCameraImage) {
-        catDetected(imageService.imageContainsCat(currentCameraImage, 50.0f));
+        catDetected(imageContainsCat(currentCameraImage));
+    }
+
+    /**
+     * Applies a detection made elsewhere, for example by a camera feed, with the current cat
+     * confidence threshold. It counts as the newest scan, so an asynchronous scan started before
+     * it and finishing after it is ignored.
+     */
+    public void processDetection(DetectionResult detection) {
+        synchronized (scanLock) {
+            appliedScan = ++submittedScans;
+            catDetected(detection.containsCat(catConfidenceThreshold));
+        }
+    }
+
+    /**
+     * Scans the image with the default timeout and applies the result on the worker thread. See {@link #processImageAsync(BufferedImage, Duration, Executor)}.
+     */
+    public CompletableFuture<Boolean> processImageAsync(BufferedImage currentCameraImage) {
+        return processImageAsync(currentCameraImage, DEFAULT_SCAN_TIMEOUT, Runnable::run);
+    }
+
+    /**
+     * Scans the image on a bounded pool of workers, without blocking the caller.
+     *
+     * Starting a scan cancels the previous one if it is still running, since only the newest
+     * frame matters. Results are applied in the order the scans were started: a result that
+     * arrives after a newer one has been applied is ignored. A scan that runs longer than the
+     * timeout is interrupted and its future fails with {@link java.util.concurrent.TimeoutException};
+     * when too many scans are waiting the future fails with {@link RejectedExecutionException}.
+     * The future of a superseded scan is cancelled.
+     * @param resultExecutor where the detection result is applied, e.g. {@code SwingUtilities::invokeLater}
+     * @return whether the image contains a cat, completed once the result has been applied
+     */
+    public CompletableFuture<Boolean> processImageAsync(BufferedImage currentCameraImage, Duration timeout, Executor resultExecutor) {
+        long scan;
+        CompletableFuture<Boolean> detection;
+        CompletableFuture<Boolean> previous;
+        synchronized (scanLock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Security service is closed"));
+            }
+            if (imageScans == null) {
+                imageScans = new ImageScanExecutor(MAX_CONCURRENT_SCANS, MAX_QUEUED_SCANS);
+            }
+            scan = ++submittedScans;
+            detection = imageScans.submit(() -> imageContainsCat(currentCameraImage))
+                    .orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            previous = latestScan;
+            latestScan = detection;
+        }
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        CompletableFuture<Boolean> applied = new CompletableFuture<>();
+        detection.whenComplete((cat, failure) -> {
+            if (detection.isCancelled()) {
+                applied.cancel(false);
+            } else if (failure != null) {
+                applied.completeExceptionally(failure);
+            } else {
+                try {
+                    resultExecutor.execute(() -> {
+                        try {
+                            applyScan(scan, cat);
+                            applied.complete(cat);
+                        } catch (RuntimeException e) {
+                            applied.completeExceptionally(e);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    applied.completeExceptionally(e);
+                }
+            }
+        });
+        //cancelling the returned future stops the scan too
+        applied.whenComplete((cat, failure) -> {
+            if (applied.isCancelled()) {
+                detection.cancel(true);
+            }
+        });
+        return applied;
+    }
+
+    private void applyScan(long scan, boolean cat) {
+        synchronized (scanLock) {
+            if (scan < appliedScan) {
+                return; // a newer frame has already been applied
+            }
+            appliedScan = scan;
+            catDetected(cat);
+        }
+    }
+
+    /**
+     * Runs image classification without touching any service state.
+     */
+    boolean imageContainsCat(BufferedImage currentCameraImage) {
+        return imageService.detect(currentCameraImage).containsCat(catConfidenceThreshold);
+    }
+
+    public float getCatConfidenceThreshold() {
+        return catConfidenceThreshold;
+    }
+
+    /**
+     * Sets the confidence, from 0 to 100, a camera image needs before it counts as showing a cat.
+     */
+    public void setCatConfidenceThreshold(float catConfidenceThreshold) {
+        if (catConfidenceThreshold < 0 || catConfidenceThreshold > 100) {
+            throw new IllegalArgumentException("catConfidenceThreshold must be between 0 and 100");
+        }
+        this.catConfidenceThreshold = catConfidenceThreshold;
     }
 
     public AlarmStatus getAlarmStatus() {
@@ -136,6 +373,10 @@ public class SecurityService {
         return securityRepository.getSensors();
     }
 
+    public List<Sensor> getSensorsInDisplayOrder() {
+        return securityRepository.getSensorsInDisplayOrder();
+    }
+
     public void addSensor(Sensor sensor) {
         securityRepository.addSensor(sensor);
     }
@@ -147,4 +388,35 @@ public class SecurityService {
     public ArmingStatus getArmingStatus() {
         return securityRepository.getArmingStatus();
     }
+
+    /**
+     * Interrupts the running image scan and stops the scan threads, completes the event
+     * publisher's subscribers and closes the asynchronous listeners. Image scans started after
+     * this fail with {@link RejectedExecutionException}.
+     */
+    @Override
+    public void close() {
+        ImageScanExecutor scans;
+        CompletableFuture<Boolean> running;
+        synchronized (scanLock) {
+            closed = true;
+            scans = imageScans;
+            running = latestScan;
+            latestScan = null;
+        }
+        if (running != null) {
+            running.cancel(true);
+        }
+        if (scans != null) {
+            scans.close();
+        }
+        if (eventPublisher != null) {
+            eventPublisher.close();
+        }
+        asyncListeners.values().forEach(async -> {
+            statusListeners.remove(async);
+            async.close();
+        });
+        asyncListeners.clear();
+    }
 }
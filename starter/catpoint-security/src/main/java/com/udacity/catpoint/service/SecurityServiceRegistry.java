@@ -0,0 +1,102 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.SecurityRepository;
+import com.udacity.catpoint.image.service.ImageService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Holds one {@link SecurityService} per home so a single process can serve many homes. Each home
+ * gets its own repository from the factory and its own service; nothing is shared between homes
+ * except the (stateless) image service, so work on different homes never contends on a lock.
+ *
+ * Services are created on first use. Removing a home, or closing the registry, closes its
+ * service, which stops the service's scan threads and event publisher, and its repository if
+ * that implements {@link Closeable}.
+ */
+public class SecurityServiceRegistry implements Closeable {
+
+    private final ConcurrentMap<String, Home> homes = new ConcurrentHashMap<>();
+    private final Function<String, ? extends SecurityRepository> repositoryFactory;
+    private final ImageService imageService;
+
+    /**
+     * @param repositoryFactory creates the repository holding the state of the given home id,
+     *                          for example {@code PretendDatabaseSecurityRepositoryImpl::new}
+     */
+    public SecurityServiceRegistry(Function<String, ? extends SecurityRepository> repositoryFactory, ImageService imageService) {
+        this.repositoryFactory = repositoryFactory;
+        this.imageService = imageService;
+    }
+
+    private static final class Home {
+        private final SecurityRepository repository;
+        private final SecurityService service;
+
+        private Home(SecurityRepository repository, SecurityService service) {
+            this.repository = repository;
+            this.service = service;
+        }
+    }
+
+    /**
+     * Returns the service for a home, creating it and opening its repository on first use.
+     */
+    public SecurityService get(String homeId) {
+        return homes.computeIfAbsent(homeId, id -> {
+            SecurityRepository repository = repositoryFactory.apply(id);
+            return new Home(repository, new SecurityService(repository, imageService));
+        }).service;
+    }
+
+    /**
+     * Returns the service for a home only if it has already been created.
+     */
+    public Optional<SecurityService> find(String homeId) {
+        Home home = homes.get(homeId);
+        return home == null ? Optional.empty() : Optional.of(home.service);
+    }
+
+    public Set<String> getHomeIds() {
+        return Set.copyOf(homes.keySet());
+    }
+
+    /**
+     * Drops a home and closes its service and repository. Does nothing for unknown homes.
+     */
+    public void remove(String homeId) throws IOException {
+        Home home = homes.remove(homeId);
+        if (home == null) {
+            return;
+        }
+        home.service.close();
+        if (home.repository instanceof Closeable) {
+            ((Closeable) home.repository).close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (String homeId : homes.keySet()) {
+            try {
+                remove(homeId);
+            } catch (IOException ioe) {
+                if (failure == null) {
+                    failure = ioe;
+                } else {
+                    failure.addSuppressed(ioe);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
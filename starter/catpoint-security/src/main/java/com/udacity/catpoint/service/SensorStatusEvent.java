@@ -0,0 +1,76 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.Sensor;
+import com.udacity.catpoint.data.SensorType;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * One or more sensors changed their activation status in a single operation. The event holds
+ * the state of each sensor as it was when the event was published, since the sensor objects
+ * themselves keep changing while the event waits to be delivered.
+ */
+public final class SensorStatusEvent implements SecurityEvent {
+
+    private final List<SensorState> sensors;
+
+    /**
+     * Immutable copy of the facts about one sensor at the time of the event.
+     */
+    public static final class SensorState {
+        private final UUID sensorId;
+        private final SensorType sensorType;
+        private final boolean active;
+
+        private SensorState(Sensor sensor) {
+            this.sensorId = sensor.getSensorId();
+            this.sensorType = sensor.getSensorType();
+            this.active = sensor.getActive();
+        }
+
+        public UUID getSensorId() {
+            return sensorId;
+        }
+
+        public SensorType getSensorType() {
+            return sensorType;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public String toString() {
+            return "SensorState{" + sensorId + ", " + sensorType + ", active=" + active + "}";
+        }
+    }
+
+    public SensorStatusEvent(List<Sensor> sensors) {
+        this.sensors = sensors.stream().map(SensorState::new).collect(Collectors.toUnmodifiableList());
+    }
+
+    public List<SensorState> getSensors() {
+        return sensors;
+    }
+
+    public Set<UUID> getSensorIds() {
+        return sensors.stream().map(SensorState::getSensorId).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Filter for events that include a sensor of the given type.
+     */
+    public static Predicate<SensorStatusEvent> involving(SensorType sensorType) {
+        return e -> e.sensors.stream().anyMatch(s -> s.sensorType == sensorType);
+    }
+
+    @Override
+    public String toString() {
+        return "SensorStatusEvent{sensors=" + sensors.size() + "}";
+    }
+}
@@ -0,0 +1,10 @@
+package com.udacity.catpoint.service;
+
+/**
+ * Handle for a registered event consumer. Closing it stops further deliveries.
+ */
+public interface Subscription extends AutoCloseable {
+
+    @Override
+    void close();
+}
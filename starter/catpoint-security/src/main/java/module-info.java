@@ -4,7 +4,6 @@ module com.udacity.catpoint.security {
     requires com.udacity.catpoint.image;
     requires com.google.gson;
     requires com.google.common;
-
-    opens com.udacity.catpoint.data to com.google.gson;
+    requires org.slf4j;
 }
 
@@ -0,0 +1,162 @@
+package com.udacity.catpoint.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogFileSecurityRepositoryImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Sensor createSensor(String name, SensorType type, boolean active) {
+        Sensor s = new Sensor(name, type);
+        s.setActive(active);
+        return s;
+    }
+
+    private Sensor find(SecurityRepository repo, Sensor sensor) {
+        return repo.getSensors().stream()
+                .filter(s -> s.getSensorId().equals(sensor.getSensorId()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private List<Path> logSegments() throws IOException {
+        return listFiles(".log");
+    }
+
+    private List<Path> listFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(p -> p.toString().endsWith(suffix)).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void reopen_replaysAllChanges() throws IOException {
+        Sensor door = createSensor("Front", SensorType.DOOR, false);
+        Sensor window = createSensor("Kitchen", SensorType.WINDOW, false);
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            repo.addSensor(door);
+            repo.addSensor(window);
+            door.setActive(true);
+            repo.updateSensor(door);
+            repo.removeSensor(window);
+            repo.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            repo.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        }
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            assertEquals(1, repo.getSensors().size());
+            Sensor replayed = find(repo, door);
+            assertNotNull(replayed);
+            assertEquals("Front", replayed.getName());
+            assertEquals(SensorType.DOOR, replayed.getSensorType());
+            assertTrue(replayed.getActive());
+            assertEquals(1, repo.activeSensorCount());
+            assertEquals(ArmingStatus.ARMED_AWAY, repo.getArmingStatus());
+            assertEquals(AlarmStatus.PENDING_ALARM, repo.getAlarmStatus());
+        }
+    }
+
+    @Test
+    public void reopen_discardsTornRecordAndKeepsAppending() throws IOException {
+        Sensor door = createSensor("Front", SensorType.DOOR, false);
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            repo.addSensor(door);
+        }
+        // simulate a crash part way through writing a sensor record
+        Path segment = logSegments().get(0);
+        try (OutputStream os = Files.newOutputStream(segment, StandardOpenOption.APPEND)) {
+            os.write(new byte[]{1, 0, 0, 0});
+        }
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            assertEquals(1, repo.getSensors().size());
+            repo.setAlarmStatus(AlarmStatus.ALARM);
+        }
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            assertNotNull(find(repo, door));
+            assertEquals(AlarmStatus.ALARM, repo.getAlarmStatus());
+        }
+    }
+
+    @Test
+    public void reopen_recoversEmptyTailSegment() throws IOException {
+        Sensor door = createSensor("Front", SensorType.DOOR, false);
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            repo.addSensor(door);
+        }
+        // simulate a crash right after a new segment was created, before its header was flushed
+        String name = logSegments().get(0).getFileName().toString();
+        long generation = Long.parseLong(name.substring("security-".length(), name.indexOf('.')));
+        Files.createFile(tempDir.resolve(String.format("security-%016d.log", generation + 1)));
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            assertNotNull(find(repo, door));
+            repo.setAlarmStatus(AlarmStatus.ALARM);
+        }
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            assertNotNull(find(repo, door));
+            assertEquals(AlarmStatus.ALARM, repo.getAlarmStatus());
+        }
+    }
+
+    @Test
+    public void activeSensorCount_tracksUpdatesAndRemovals() throws IOException {
+        Sensor door = createSensor("Front", SensorType.DOOR, true);
+        Sensor window = createSensor("Kitchen", SensorType.WINDOW, true);
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir)) {
+            repo.addSensor(door);
+            repo.addSensor(window);
+            assertEquals(2, repo.activeSensorCount());
+
+            door.setActive(false);
+            repo.updateSensor(door);
+            assertEquals(1, repo.activeSensorCount());
+
+            repo.removeSensor(window);
+            assertFalse(repo.hasActiveSensors());
+        }
+    }
+
+    @Test
+    public void compaction_foldsOldSegmentsIntoSnapshot() throws IOException {
+        Sensor door = createSensor("Front", SensorType.DOOR, false);
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir, CompactionPolicy.ofRecords(4))) {
+            repo.addSensor(door);
+            for (int i = 0; i < 25; i++) {
+                door.setActive(i % 2 == 0);
+                repo.updateSensor(door);
+            }
+            repo.setArmingStatus(ArmingStatus.ARMED_HOME);
+        }
+
+        // closing waits for the compactor, so only the newest snapshot and the segments after it remain
+        assertEquals(1, listFiles(".snapshot").size());
+        assertTrue(logSegments().size() <= 2);
+
+        try (LogFileSecurityRepositoryImpl repo = new LogFileSecurityRepositoryImpl(tempDir, CompactionPolicy.ofRecords(4))) {
+            assertEquals(1, repo.getSensors().size());
+            assertTrue(find(repo, door).getActive());
+            assertEquals(ArmingStatus.ARMED_HOME, repo.getArmingStatus());
+        }
+    }
+}
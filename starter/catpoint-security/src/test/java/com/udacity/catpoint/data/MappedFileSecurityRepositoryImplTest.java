@@ -0,0 +1,118 @@
+package com.udacity.catpoint.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileSecurityRepositoryImplTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void reopen_restoresSensorsAndStatuses() throws IOException {
+        Path file = dir.resolve("security.dat");
+        Sensor door = new Sensor("Front", SensorType.DOOR);
+        Sensor window = new Sensor("Kitchen", SensorType.WINDOW);
+
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(file)) {
+            repo.addSensor(door);
+            repo.addSensor(window);
+            door.setActive(true);
+            repo.updateSensor(door);
+            window.setName("Back kitchen");
+            repo.updateSensor(window);
+            repo.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+            repo.setArmingStatus(ArmingStatus.ARMED_HOME);
+        }
+
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(file)) {
+            assertEquals(2, repo.getSensors().size());
+            assertEquals(1, repo.activeSensorCount());
+            Sensor reloaded = repo.getSensorsInDisplayOrder().get(0);
+            assertEquals(window.getSensorId(), reloaded.getSensorId());
+            assertEquals("Back kitchen", reloaded.getName());
+            assertEquals(AlarmStatus.PENDING_ALARM, repo.getAlarmStatus());
+            assertEquals(ArmingStatus.ARMED_HOME, repo.getArmingStatus());
+        }
+    }
+
+    @Test
+    public void growingPastCapacity_keepsEverySensor() throws IOException {
+        Path file = dir.resolve("security.dat");
+        List<Sensor> added = new ArrayList<>();
+
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(file, 64)) {
+            for (int i = 0; i < 200; i++) {
+                Sensor sensor = new Sensor("Sensor " + i, SensorType.MOTION);
+                sensor.setActive(i % 3 == 0);
+                repo.addSensor(sensor);
+                added.add(sensor);
+            }
+            repo.removeSensor(added.remove(0));
+            repo.addSensor(new Sensor("Reused slot", SensorType.DOOR));
+        }
+
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(file)) {
+            assertEquals(200, repo.getSensors().size());
+            assertTrue(repo.getSensors().containsAll(added));
+            assertEquals(66, repo.activeSensorCount());
+        }
+    }
+
+    @Test
+    public void reopen_finishesInterruptedGrow() throws IOException {
+        Path file = dir.resolve("security.dat");
+        List<Sensor> added = new ArrayList<>();
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(file, 64)) {
+            for (int i = 0; i < 64; i++) {
+                Sensor sensor = new Sensor("Sensor " + i, SensorType.WINDOW);
+                sensor.setActive(i % 2 == 0);
+                repo.addSensor(sensor);
+                added.add(sensor);
+            }
+        }
+
+        // stop a grow from 64 to 128 slots right after the slots were parked and the capacity marked pending
+        int oldSlots = 64 + 64 / 8;
+        int newSlots = 64 + 128 / 8;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer slots = ByteBuffer.allocate(64 * 128);
+            channel.read(slots, oldSlots);
+            slots.flip();
+            channel.write(slots, newSlots + 64 * 128);
+            channel.write(ByteBuffer.allocate(4).putInt(0, 128), 24);
+            // the first slot is already overwritten by the new bit region
+            channel.write(ByteBuffer.allocate(8), oldSlots);
+        }
+
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(file)) {
+            assertEquals(64, repo.getSensors().size());
+            assertTrue(repo.getSensors().containsAll(added));
+            assertEquals(32, repo.activeSensorCount());
+            repo.addSensor(new Sensor("After grow", SensorType.DOOR));
+        }
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(file)) {
+            assertEquals(65, repo.getSensors().size());
+        }
+    }
+
+    @Test
+    public void overlongName_isRejected() throws IOException {
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(dir.resolve("security.dat"))) {
+            Sensor sensor = new Sensor("x".repeat(MappedFileSecurityRepositoryImpl.MAX_NAME_BYTES + 1), SensorType.DOOR);
+            assertThrows(IllegalArgumentException.class, () -> repo.addSensor(sensor));
+            assertTrue(repo.getSensors().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.udacity.catpoint.data;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares encoding and decoding a few thousand sensors with the reflective Gson mapping the
+ * repositories used before, {@link SensorCodec}'s JSON form and its binary form, and prints the
+ * time per round trip and the encoded size of each. Not a unit test; run it by hand:
+ *
+ * <pre>java -cp ... com.udacity.catpoint.data.SensorCodecBenchmark [sensor count]</pre>
+ */
+public class SensorCodecBenchmark {
+
+    private static final long WARMUP_NANOS = 3_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+    private static final Type SENSOR_LIST = new TypeToken<List<Sensor>>() {}.getType();
+
+    private interface Codec {
+        byte[] encode(List<Sensor> sensors) throws IOException;
+
+        List<Sensor> decode(byte[] data) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        List<Sensor> sensors = sensors(count);
+        Gson gson = new Gson();
+
+        Codec reflective = new Codec() {
+            @Override
+            public byte[] encode(List<Sensor> sensors) {
+                return gson.toJson(sensors).getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public List<Sensor> decode(byte[] data) {
+                return gson.fromJson(new String(data, StandardCharsets.UTF_8), SENSOR_LIST);
+            }
+        };
+        Codec json = new Codec() {
+            @Override
+            public byte[] encode(List<Sensor> sensors) {
+                return SensorCodec.toJson(sensors).getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public List<Sensor> decode(byte[] data) throws IOException {
+                List<Sensor> decoded = new ArrayList<>();
+                SensorCodec.fromJson(new String(data, StandardCharsets.UTF_8), decoded::add);
+                return decoded;
+            }
+        };
+        Codec binary = new Codec() {
+            @Override
+            public byte[] encode(List<Sensor> sensors) throws IOException {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(sensors.size() * 32);
+                DataOutputStream out = new DataOutputStream(buffer);
+                out.writeInt(sensors.size());
+                for (Sensor sensor : sensors) {
+                    SensorCodec.writeSensor(out, sensor);
+                }
+                return buffer.toByteArray();
+            }
+
+            @Override
+            public List<Sensor> decode(byte[] data) throws IOException {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+                int size = in.readInt();
+                List<Sensor> decoded = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    decoded.add(SensorCodec.readSensor(in));
+                }
+                return decoded;
+            }
+        };
+
+        for (Codec codec : List.of(reflective, json, binary)) {
+            List<Sensor> decoded = codec.decode(codec.encode(sensors));
+            for (int i = 0; i < count; i++) {
+                Sensor expected = sensors.get(i);
+                Sensor actual = decoded.get(i);
+                if (!actual.equals(expected) || !actual.getName().equals(expected.getName())
+                        || actual.getSensorType() != expected.getSensorType()
+                        || !actual.getActive().equals(expected.getActive())) {
+                    throw new IllegalStateException("Round trip changed sensor " + i);
+                }
+            }
+            run(codec, sensors, WARMUP_NANOS);
+        }
+        System.out.printf("%d sensors%n", count);
+        report("reflective Gson", reflective, sensors);
+        report("SensorCodec JSON", json, sensors);
+        report("SensorCodec binary", binary, sensors);
+    }
+
+    private static void report(String name, Codec codec, List<Sensor> sensors) throws IOException {
+        double[] micros = run(codec, sensors, MEASURE_NANOS);
+        System.out.printf("%-20s encode %8.1f us  decode %8.1f us  %8d bytes%n",
+                name, micros[0], micros[1], codec.encode(sensors).length);
+    }
+
+    /**
+     * @return mean microseconds to encode and to decode the whole list
+     */
+    private static double[] run(Codec codec, List<Sensor> sensors, long nanos) {
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        int rounds = 0;
+        int sink = 0;
+        try {
+            while (encodeNanos + decodeNanos < nanos) {
+                long start = System.nanoTime();
+                byte[] data = codec.encode(sensors);
+                long encoded = System.nanoTime();
+                sink += codec.decode(data).size();
+                encodeNanos += encoded - start;
+                decodeNanos += System.nanoTime() - encoded;
+                rounds++;
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        //keeps the work from being optimized away
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return new double[]{encodeNanos / 1e3 / rounds, decodeNanos / 1e3 / rounds};
+    }
+
+    private static List<Sensor> sensors(int count) {
+        Random random = new Random(1);
+        SensorType[] types = SensorType.values();
+        List<Sensor> sensors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Sensor sensor = new Sensor("Sensor " + i, types[random.nextInt(types.length)]);
+            sensor.setActive(random.nextBoolean());
+            sensors.add(sensor);
+        }
+        return sensors;
+    }
+}
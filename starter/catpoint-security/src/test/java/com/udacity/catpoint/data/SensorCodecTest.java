@@ -0,0 +1,83 @@
+package com.udacity.catpoint.data;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorCodecTest {
+
+    private Sensor createSensor(String name, SensorType type, boolean active) {
+        Sensor s = new Sensor(name, type);
+        s.setActive(active);
+        return s;
+    }
+
+    private void assertSameSensor(Sensor expected, Sensor actual) {
+        assertEquals(expected.getSensorId(), actual.getSensorId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getSensorType(), actual.getSensorType());
+        assertEquals(expected.getActive(), actual.getActive());
+    }
+
+    @Test
+    public void json_roundTrip() throws IOException {
+        List<Sensor> sensors = List.of(
+                createSensor("Front \"door\"", SensorType.DOOR, true),
+                createSensor("Küche", SensorType.WINDOW, false));
+
+        List<Sensor> read = new ArrayList<>();
+        SensorCodec.fromJson(SensorCodec.toJson(sensors), read::add);
+
+        assertEquals(sensors.size(), read.size());
+        for (int i = 0; i < sensors.size(); i++) {
+            assertSameSensor(sensors.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    public void json_readsPreviouslyStoredReflectiveFormat() throws IOException {
+        Set<Sensor> sensors = new TreeSet<>();
+        sensors.add(createSensor("Front", SensorType.DOOR, true));
+        sensors.add(createSensor("Hall", SensorType.MOTION, false));
+        String legacy = new Gson().toJson(sensors);
+
+        List<Sensor> read = new ArrayList<>();
+        SensorCodec.fromJson(legacy, read::add);
+
+        assertEquals(sensors.size(), read.size());
+        List<Sensor> expected = new ArrayList<>(sensors);
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameSensor(expected.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    public void binary_roundTrip() throws IOException {
+        Sensor sensor = createSensor("x".repeat(300), SensorType.MOTION, true);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            SensorCodec.writeSensor(out, sensor);
+            SensorCodec.writeAlarmStatus(out, AlarmStatus.PENDING_ALARM);
+            SensorCodec.writeArmingStatus(out, ArmingStatus.ARMED_AWAY);
+        }
+        // 16 byte id, type, active flag, two byte varint length, name, two statuses
+        assertEquals(16 + 1 + 1 + 2 + 300 + 2, bytes.size());
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSameSensor(sensor, SensorCodec.readSensor(in));
+            assertEquals(AlarmStatus.PENDING_ALARM, SensorCodec.readAlarmStatus(in));
+            assertEquals(ArmingStatus.ARMED_AWAY, SensorCodec.readArmingStatus(in));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.udacity.catpoint.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorIndexTest {
+
+    @Test
+    public void randomPutsAndRemoves_matchReferenceMap() {
+        Random random = new Random(42);
+        SensorIndex index = new SensorIndex();
+        Map<UUID, Sensor> reference = new HashMap<>();
+        List<Sensor> pool = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            pool.add(new Sensor("Sensor" + i, SensorType.values()[i % 3]));
+        }
+
+        for (int step = 0; step < 20000; step++) {
+            Sensor sensor = pool.get(random.nextInt(pool.size()));
+            if (random.nextInt(3) == 0) {
+                index.remove(sensor.getSensorId());
+                reference.remove(sensor.getSensorId());
+            } else {
+                sensor.setActive(random.nextBoolean());
+                index.put(sensor);
+                reference.put(sensor.getSensorId(), sensor);
+            }
+        }
+
+        assertEquals(reference.size(), index.size());
+        assertEquals(new HashSet<>(reference.values()), new HashSet<>(index.values()));
+        assertEquals(reference.values().stream().filter(Sensor::getActive).count(), index.activeCount());
+        for (Sensor sensor : pool) {
+            assertEquals(reference.get(sensor.getSensorId()), index.get(sensor.getSensorId()));
+        }
+    }
+
+    @Test
+    public void activeCount_usesStateAtLastWrite() {
+        SensorIndex index = new SensorIndex();
+        Sensor sensor = new Sensor("Front", SensorType.DOOR);
+        sensor.setActive(true);
+        index.put(sensor);
+
+        // mutating the sensor without writing it back does not change the count
+        sensor.setActive(false);
+        assertEquals(1, index.activeCount());
+
+        index.put(sensor);
+        assertEquals(0, index.activeCount());
+    }
+
+    @Test
+    public void displayOrder_sortsByNameThenType_andRefreshesOnRename() {
+        SensorIndex index = new SensorIndex();
+        Sensor b = new Sensor("B", SensorType.DOOR);
+        Sensor aWindow = new Sensor("A", SensorType.WINDOW);
+        Sensor aMotion = new Sensor("A", SensorType.MOTION);
+        index.put(b);
+        index.put(aWindow);
+        index.put(aMotion);
+
+        assertEquals(List.of(aMotion, aWindow, b), index.displayOrder());
+
+        // toggling a sensor keeps the cached order
+        List<Sensor> before = index.displayOrder();
+        b.setActive(true);
+        index.put(b);
+        assertSame(before, index.displayOrder());
+
+        b.setName("0");
+        index.put(b);
+        assertEquals(List.of(b, aMotion, aWindow), index.displayOrder());
+    }
+}
@@ -0,0 +1,156 @@
+package com.udacity.catpoint.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindSecurityRepositoryTest {
+
+    private static class CountingRepository implements SecurityRepository {
+        private final Map<UUID, Sensor> sensors = new HashMap<>();
+        private final Map<UUID, Boolean> storedActive = new HashMap<>();
+        private AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
+        private ArmingStatus armingStatus = ArmingStatus.DISARMED;
+        int writes = 0;
+
+        @Override
+        public synchronized void addSensor(Sensor sensor) {
+            sensors.put(sensor.getSensorId(), sensor);
+            storedActive.put(sensor.getSensorId(), sensor.getActive());
+            writes++;
+        }
+
+        @Override
+        public synchronized void removeSensor(Sensor sensor) {
+            sensors.remove(sensor.getSensorId());
+            storedActive.remove(sensor.getSensorId());
+            writes++;
+        }
+
+        @Override
+        public synchronized void updateSensor(Sensor sensor) {
+            updateSensors(Set.of(sensor));
+        }
+
+        @Override
+        public synchronized void updateSensors(Collection<Sensor> updated) {
+            updated.forEach(s -> {
+                sensors.put(s.getSensorId(), s);
+                storedActive.put(s.getSensorId(), s.getActive());
+            });
+            writes++;
+        }
+
+        @Override
+        public synchronized void setAlarmStatus(AlarmStatus alarmStatus) {
+            this.alarmStatus = alarmStatus;
+            writes++;
+        }
+
+        @Override
+        public synchronized void setArmingStatus(ArmingStatus armingStatus) {
+            this.armingStatus = armingStatus;
+            writes++;
+        }
+
+        @Override
+        public synchronized Set<Sensor> getSensors() {
+            return new HashSet<>(sensors.values());
+        }
+
+        @Override
+        public synchronized AlarmStatus getAlarmStatus() {
+            return alarmStatus;
+        }
+
+        @Override
+        public synchronized ArmingStatus getArmingStatus() {
+            return armingStatus;
+        }
+    }
+
+    @Test
+    public void repeatedWrites_areCoalescedIntoOneBatch() throws IOException {
+        CountingRepository delegate = new CountingRepository();
+        Sensor door = new Sensor("Front", SensorType.DOOR);
+        delegate.addSensor(door);
+        delegate.writes = 0;
+
+        try (WriteBehindSecurityRepository repo = new WriteBehindSecurityRepository(delegate, Duration.ofHours(1), 1000)) {
+            for (int i = 0; i < 100; i++) {
+                door.setActive(i % 2 == 0);
+                repo.updateSensor(door);
+                repo.setAlarmStatus(i % 2 == 0 ? AlarmStatus.PENDING_ALARM : AlarmStatus.ALARM);
+            }
+            // reads are served from memory before anything is persisted
+            assertEquals(AlarmStatus.ALARM, repo.getAlarmStatus());
+            assertFalse(repo.hasActiveSensors());
+            assertEquals(0, delegate.writes);
+
+            repo.flush();
+
+            // one sensor batch and one alarm status write
+            assertEquals(2, delegate.writes);
+            assertEquals(AlarmStatus.ALARM, delegate.getAlarmStatus());
+            assertFalse(delegate.storedActive.get(door.getSensorId()));
+        }
+    }
+
+    @Test
+    public void changes_areFlushedInTheBackgroundWithinMaxLatency() throws InterruptedException, IOException {
+        CountingRepository delegate = new CountingRepository();
+
+        try (WriteBehindSecurityRepository repo = new WriteBehindSecurityRepository(delegate, Duration.ofMillis(10), 1000)) {
+            repo.setArmingStatus(ArmingStatus.ARMED_AWAY);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (delegate.getArmingStatus() != ArmingStatus.ARMED_AWAY && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(ArmingStatus.ARMED_AWAY, delegate.getArmingStatus());
+        }
+    }
+
+    @Test
+    public void addThenRemoveBeforeFlush_neverReachesDelegate() throws IOException {
+        CountingRepository delegate = new CountingRepository();
+        Sensor window = new Sensor("Kitchen", SensorType.WINDOW);
+
+        WriteBehindSecurityRepository repo = new WriteBehindSecurityRepository(delegate, Duration.ofHours(1), 1000);
+        repo.addSensor(window);
+        repo.removeSensor(window);
+        Sensor door = new Sensor("Front", SensorType.DOOR);
+        repo.addSensor(door);
+        repo.close();
+
+        assertEquals(1, delegate.writes);
+        assertEquals(Set.of(door), delegate.getSensors());
+    }
+
+    @Test
+    public void changesAfterClose_areRejected() throws IOException {
+        CountingRepository delegate = new CountingRepository();
+        Sensor door = new Sensor("Front", SensorType.DOOR);
+
+        WriteBehindSecurityRepository repo = new WriteBehindSecurityRepository(delegate, Duration.ofHours(1), 1000);
+        repo.addSensor(door);
+        repo.close();
+        repo.close();
+
+        assertThrows(IllegalStateException.class, () -> repo.setAlarmStatus(AlarmStatus.ALARM));
+        assertThrows(IllegalStateException.class, () -> repo.updateSensor(door));
+        assertThrows(IllegalStateException.class, () -> repo.removeSensor(door));
+        assertEquals(AlarmStatus.NO_ALARM, repo.getAlarmStatus());
+        assertEquals(Set.of(door), repo.getSensors());
+        assertEquals(1, delegate.writes);
+    }
+}
@@ -0,0 +1,65 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.AlarmStatus;
+import com.udacity.catpoint.data.ArmingStatus;
+import com.udacity.catpoint.service.AlarmStateMachine.Event;
+
+import java.util.Random;
+
+/**
+ * Measures {@link AlarmStateMachine#next} against the branching rules SecurityService used
+ * before the table, on a random mix of states and events, and prints million transitions per
+ * second for each. Not a unit test; run it by hand:
+ *
+ * <pre>java -cp ... com.udacity.catpoint.service.AlarmStateMachineBenchmark</pre>
+ */
+public class AlarmStateMachineBenchmark {
+
+    private static final int INPUTS = 4096;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    private interface Transition {
+        AlarmStatus next(ArmingStatus armingStatus, AlarmStatus alarmStatus, Event event);
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        ArmingStatus[] armingStatuses = new ArmingStatus[INPUTS];
+        AlarmStatus[] alarmStatuses = new AlarmStatus[INPUTS];
+        Event[] events = new Event[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            armingStatuses[i] = ArmingStatus.values()[random.nextInt(ArmingStatus.values().length)];
+            alarmStatuses[i] = AlarmStatus.values()[random.nextInt(AlarmStatus.values().length)];
+            events[i] = Event.values()[random.nextInt(Event.values().length)];
+        }
+
+        Transition table = AlarmStateMachine::next;
+        Transition branches = AlarmStateMachineTest::expected;
+        run(table, armingStatuses, alarmStatuses, events, WARMUP_NANOS);
+        run(branches, armingStatuses, alarmStatuses, events, WARMUP_NANOS);
+
+        System.out.printf("table:    %.1f M transitions/s%n", run(table, armingStatuses, alarmStatuses, events, MEASURE_NANOS));
+        System.out.printf("branches: %.1f M transitions/s%n", run(branches, armingStatuses, alarmStatuses, events, MEASURE_NANOS));
+    }
+
+    private static double run(Transition transition, ArmingStatus[] armingStatuses, AlarmStatus[] alarmStatuses,
+                              Event[] events, long nanos) {
+        long count = 0;
+        int sink = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < INPUTS; i++) {
+                sink += transition.next(armingStatuses[i], alarmStatuses[i], events[i]).ordinal();
+            }
+            count += INPUTS;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        //keeps the loop from being optimized away
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return count * 1e3 / elapsed;
+    }
+}
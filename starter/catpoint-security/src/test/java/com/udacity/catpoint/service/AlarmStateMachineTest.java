@@ -0,0 +1,179 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.AlarmStatus;
+import com.udacity.catpoint.data.ArmingStatus;
+import com.udacity.catpoint.service.AlarmStateMachine.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlarmStateMachineTest {
+
+    private static Stream<Arguments> everyStateAndEvent() {
+        List<Arguments> arguments = new ArrayList<>();
+        for (ArmingStatus armingStatus : ArmingStatus.values()) {
+            for (AlarmStatus alarmStatus : AlarmStatus.values()) {
+                for (Event event : Event.values()) {
+                    arguments.add(Arguments.of(armingStatus, alarmStatus, event));
+                }
+            }
+        }
+        return arguments.stream();
+    }
+
+    /**
+     * The rules as SecurityService applied them before the table existed. Also the baseline for
+     * {@link AlarmStateMachineBenchmark}.
+     */
+    static AlarmStatus expected(ArmingStatus armingStatus, AlarmStatus current, Event event) {
+        switch (event) {
+            case SENSOR_ACTIVATED:
+                if (armingStatus == ArmingStatus.DISARMED) {
+                    return current;
+                }
+                if (current == AlarmStatus.NO_ALARM) {
+                    return AlarmStatus.PENDING_ALARM;
+                } else if (current == AlarmStatus.PENDING_ALARM) {
+                    return AlarmStatus.ALARM;
+                }
+                return current;
+            case SENSOR_REACTIVATED:
+                return current == AlarmStatus.PENDING_ALARM ? AlarmStatus.ALARM : current;
+            case SENSOR_DEACTIVATED:
+            case LAST_SENSOR_DEACTIVATED:
+                if (current == AlarmStatus.PENDING_ALARM) {
+                    return event == Event.LAST_SENSOR_DEACTIVATED ? AlarmStatus.NO_ALARM : current;
+                } else if (current == AlarmStatus.ALARM) {
+                    return AlarmStatus.PENDING_ALARM;
+                }
+                return current;
+            case CAT_DETECTED:
+                return armingStatus == ArmingStatus.ARMED_HOME ? AlarmStatus.ALARM : current;
+            case CAT_CLEARED:
+            case DISARM:
+                return AlarmStatus.NO_ALARM;
+            case ARM_HOME_WITH_CAT:
+                return AlarmStatus.ALARM;
+            default:
+                return current;
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("everyStateAndEvent")
+    public void table_matchesRules(ArmingStatus armingStatus, AlarmStatus alarmStatus, Event event) {
+        assertEquals(expected(armingStatus, alarmStatus, event), AlarmStateMachine.next(armingStatus, alarmStatus, event));
+    }
+
+    //the transitions the original SecurityServiceTest checks, one by one
+
+    @Test
+    public void armedAndSensorActivated_putsPending() {
+        assertEquals(AlarmStatus.PENDING_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.NO_ALARM, Event.SENSOR_ACTIVATED));
+        assertEquals(AlarmStatus.PENDING_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_HOME, AlarmStatus.NO_ALARM, Event.SENSOR_ACTIVATED));
+    }
+
+    @Test
+    public void armedAndSensorActivated_whenPending_setsAlarm() {
+        assertEquals(AlarmStatus.ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.PENDING_ALARM, Event.SENSOR_ACTIVATED));
+    }
+
+    @Test
+    public void pendingAlarm_and_allSensorsInactive_returnToNoAlarm() {
+        assertEquals(AlarmStatus.NO_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.PENDING_ALARM, Event.LAST_SENSOR_DEACTIVATED));
+        assertEquals(AlarmStatus.PENDING_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.PENDING_ALARM, Event.SENSOR_DEACTIVATED));
+    }
+
+    @Test
+    public void alarmActive_changeInSensorState_noEffect() {
+        assertEquals(AlarmStatus.ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.ALARM, Event.SENSOR_ACTIVATED));
+        assertEquals(AlarmStatus.ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.ALARM, Event.SENSOR_REACTIVATED));
+    }
+
+    @Test
+    public void sensorActivated_whileAlreadyActive_andPending_setsAlarm() {
+        assertEquals(AlarmStatus.ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.PENDING_ALARM, Event.SENSOR_REACTIVATED));
+    }
+
+    @ParameterizedTest
+    @EnumSource(AlarmStatus.class)
+    public void sensorDeactivated_whileAlreadyInactive_noChange(AlarmStatus initialStatus) {
+        assertEquals(initialStatus,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, initialStatus, Event.SENSOR_STILL_INACTIVE));
+    }
+
+    @Test
+    public void imageServiceDetectsCat_whileArmedHome_putsAlarm() {
+        assertEquals(AlarmStatus.ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_HOME, AlarmStatus.NO_ALARM, Event.CAT_DETECTED));
+        assertEquals(AlarmStatus.NO_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.NO_ALARM, Event.CAT_DETECTED));
+    }
+
+    @Test
+    public void imageServiceNoCat_setsNoAlarm_ifNoSensorsActive() {
+        assertEquals(AlarmStatus.NO_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_HOME, AlarmStatus.ALARM, Event.CAT_CLEARED));
+    }
+
+    @Test
+    public void imageNoCat_withActiveSensor_doesNotSetNoAlarm() {
+        assertEquals(AlarmStatus.PENDING_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_HOME, AlarmStatus.PENDING_ALARM, Event.CAT_CLEARED_SENSORS_ACTIVE));
+    }
+
+    @Test
+    public void disarmed_setsNoAlarm() {
+        assertEquals(AlarmStatus.NO_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.ALARM, Event.DISARM));
+    }
+
+    @Test
+    public void armedHomeWhileCameraShowsCat_setsAlarm() {
+        assertEquals(AlarmStatus.ALARM,
+                AlarmStateMachine.next(ArmingStatus.DISARMED, AlarmStatus.NO_ALARM, Event.ARM_HOME_WITH_CAT));
+        assertEquals(AlarmStatus.NO_ALARM,
+                AlarmStateMachine.next(ArmingStatus.DISARMED, AlarmStatus.NO_ALARM, Event.ARM));
+    }
+
+    @Test
+    public void sensorActivationWhileDisarmed_noChange() {
+        assertEquals(AlarmStatus.NO_ALARM,
+                AlarmStateMachine.next(ArmingStatus.DISARMED, AlarmStatus.NO_ALARM, Event.SENSOR_ACTIVATED));
+    }
+
+    @Test
+    public void sensorDeactivated_fromAlarm_setsPending() {
+        assertEquals(AlarmStatus.PENDING_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.ALARM, Event.SENSOR_DEACTIVATED));
+        assertEquals(AlarmStatus.PENDING_ALARM,
+                AlarmStateMachine.next(ArmingStatus.ARMED_AWAY, AlarmStatus.ALARM, Event.LAST_SENSOR_DEACTIVATED));
+    }
+
+    @Test
+    public void sensorEvent_classifiesEveryReport() {
+        for (boolean activeAfter : new boolean[]{false, true}) {
+            assertEquals(Event.SENSOR_STILL_INACTIVE, AlarmStateMachine.sensorEvent(false, false, activeAfter));
+            assertEquals(Event.SENSOR_ACTIVATED, AlarmStateMachine.sensorEvent(false, true, activeAfter));
+            assertEquals(Event.SENSOR_REACTIVATED, AlarmStateMachine.sensorEvent(true, true, activeAfter));
+        }
+        assertEquals(Event.SENSOR_DEACTIVATED, AlarmStateMachine.sensorEvent(true, false, true));
+        assertEquals(Event.LAST_SENSOR_DEACTIVATED, AlarmStateMachine.sensorEvent(true, false, false));
+    }
+}
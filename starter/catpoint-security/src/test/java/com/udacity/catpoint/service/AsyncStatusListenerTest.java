@@ -0,0 +1,161 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.application.StatusListener;
+import com.udacity.catpoint.data.AlarmStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncStatusListenerTest {
+
+    private static class RecordingListener implements StatusListener {
+        final List<Object> received = new ArrayList<>();
+
+        @Override
+        public void notify(AlarmStatus status) {
+            received.add(status);
+        }
+
+        @Override
+        public void catDetected(boolean catDetected) {
+            received.add(catDetected);
+        }
+
+        @Override
+        public void sensorStatusChanged() {
+            received.add("sensors");
+        }
+
+        @Override
+        public void sensorsChanged(Set<UUID> sensorIds) {
+            received.add(sensorIds);
+        }
+    }
+
+    //executor that runs tasks only when the test says so
+    private static class ManualExecutor implements Executor {
+        final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+            notifyAll();
+        }
+
+        synchronized void awaitTask() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (tasks.isEmpty() && System.currentTimeMillis() < deadline) {
+                wait(10);
+            }
+        }
+
+        synchronized void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    @Test
+    public void dropOldest_keepsNewestNotifications() {
+        RecordingListener listener = new RecordingListener();
+        ManualExecutor executor = new ManualExecutor();
+        AsyncStatusListener async = new AsyncStatusListener(listener,
+                DispatchOptions.queued(2, OverflowPolicy.DROP_OLDEST).withExecutor(executor));
+
+        async.notify(AlarmStatus.PENDING_ALARM);
+        async.catDetected(true);
+        async.notify(AlarmStatus.ALARM);
+        assertEquals(2, async.getMetrics().getQueueDepth());
+        executor.runAll();
+
+        assertEquals(List.of(true, AlarmStatus.ALARM), listener.received);
+        assertEquals(1, async.getMetrics().getDropped());
+        assertEquals(2, async.getMetrics().getDelivered());
+    }
+
+    @Test
+    public void coalesceLatest_deliversLatestValueOfEachKind() {
+        RecordingListener listener = new RecordingListener();
+        ManualExecutor executor = new ManualExecutor();
+        AsyncStatusListener async = new AsyncStatusListener(listener,
+                DispatchOptions.queued(16, OverflowPolicy.COALESCE_LATEST).withExecutor(executor));
+
+        for (int i = 0; i < 10; i++) {
+            async.sensorStatusChanged();
+            async.notify(i % 2 == 0 ? AlarmStatus.PENDING_ALARM : AlarmStatus.ALARM);
+        }
+        executor.runAll();
+
+        assertEquals(List.of("sensors", AlarmStatus.ALARM), listener.received);
+        assertEquals(18, async.getMetrics().getCoalesced());
+    }
+
+    @Test
+    public void coalescingWindow_mergesChangedSensorIds() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        ManualExecutor executor = new ManualExecutor();
+        AsyncStatusListener async = new AsyncStatusListener(listener, DispatchOptions.queued(16, OverflowPolicy.DROP_OLDEST)
+                .withExecutor(executor)
+                .withCoalescingWindow(Duration.ofMillis(20)));
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        async.sensorsChanged(Set.of(first));
+        async.sensorsChanged(Set.of(second));
+        async.sensorsChanged(Set.of(first));
+        assertTrue(executor.tasks.isEmpty());
+
+        executor.awaitTask();
+        executor.runAll();
+
+        assertEquals(List.of(Set.of(first, second)), listener.received);
+        assertEquals(2, async.getMetrics().getCoalesced());
+    }
+
+    @Test
+    public void slowListener_doesNotBlockNotifier_orOtherListeners() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastReceived = new CountDownLatch(1);
+        StatusListener slow = new RecordingListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        StatusListener fast = new RecordingListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+                fastReceived.countDown();
+            }
+        };
+        AsyncStatusListener slowAsync = new AsyncStatusListener(slow, DispatchOptions.queued(4, OverflowPolicy.DROP_OLDEST));
+        AsyncStatusListener fastAsync = new AsyncStatusListener(fast, DispatchOptions.queued(4, OverflowPolicy.DROP_OLDEST));
+
+        for (int i = 0; i < 100; i++) {
+            slowAsync.notify(AlarmStatus.ALARM);
+            fastAsync.notify(AlarmStatus.ALARM);
+        }
+        assertTrue(fastReceived.await(5, TimeUnit.SECONDS));
+        assertTrue(slowAsync.getMetrics().getDropped() > 0);
+
+        release.countDown();
+        slowAsync.close();
+        fastAsync.close();
+    }
+}
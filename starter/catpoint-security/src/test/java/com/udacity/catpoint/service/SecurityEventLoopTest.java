@@ -0,0 +1,144 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.application.StatusListener;
+import com.udacity.catpoint.data.*;
+import com.udacity.catpoint.image.service.DetectionResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecurityEventLoopTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void ringBuffer_isFifo_andBounded() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(buffer.offer(i));
+            }
+            assertFalse(buffer.offer(4));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), buffer.poll());
+            }
+            assertNull(buffer.poll());
+            assertTrue(buffer.isEmpty());
+        }
+    }
+
+    @Test
+    public void concurrentProducers_areAppliedByOneThread() throws Exception {
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(dir.resolve("security.dat"))) {
+            SecurityService service = new SecurityService(repo, image -> DetectionResult.empty());
+            List<Sensor> sensors = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Sensor sensor = new Sensor("Sensor " + i, SensorType.DOOR);
+                service.addSensor(sensor);
+                sensors.add(sensor);
+            }
+
+            SecurityEventLoop loop = new SecurityEventLoop(service, 16);
+            List<Thread> producers = new ArrayList<>();
+            for (Sensor sensor : sensors) {
+                Thread producer = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        loop.changeSensorActivationStatus(sensor, i % 2 == 0);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            loop.barrier().join();
+            loop.close();
+
+            // every producer ended on an inactive event and the count tracked every flip
+            assertEquals(0, repo.activeSensorCount());
+            assertEquals(AlarmStatus.NO_ALARM, service.getAlarmStatus());
+            assertThrows(RejectedExecutionException.class, () -> loop.setArmingStatus(ArmingStatus.ARMED_HOME));
+        }
+    }
+
+    @Test
+    public void catResult_isAppliedInOrder() throws IOException {
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(dir.resolve("security.dat"));
+             SecurityEventLoop loop = new SecurityEventLoop(new SecurityService(repo, image -> DetectionResult.cat(100, Map.of())))) {
+            loop.setArmingStatus(ArmingStatus.ARMED_HOME);
+            loop.processImage(null);
+            loop.barrier().join();
+            assertEquals(AlarmStatus.ALARM, repo.getAlarmStatus());
+        }
+    }
+
+    @Test
+    public void listenerEnqueuingIntoFullBuffer_doesNotDeadlock() throws Exception {
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(dir.resolve("security.dat"));
+             SecurityEventLoop loop = new SecurityEventLoop(new SecurityService(repo, image -> DetectionResult.empty()), 2)) {
+            CompletableFuture<Void> listenerDone = new CompletableFuture<>();
+            loop.addStatusListener(new StatusListener() {
+                @Override
+                public void notify(AlarmStatus status) {
+                }
+
+                @Override
+                public void catDetected(boolean catDetected) {
+                    // runs on the owner thread, which is the only one draining the buffer
+                    for (int i = 0; i < 4; i++) {
+                        loop.setArmingStatus(ArmingStatus.ARMED_HOME);
+                    }
+                    loop.setArmingStatus(ArmingStatus.ARMED_AWAY);
+                    listenerDone.complete(null);
+                }
+
+                @Override
+                public void sensorStatusChanged() {
+                }
+            });
+            loop.processImage(null);
+            //a barrier only covers events queued before it, so wait until the listener has queued its own
+            listenerDone.get(5, TimeUnit.SECONDS);
+            loop.barrier().get(5, TimeUnit.SECONDS);
+            assertEquals(ArmingStatus.ARMED_AWAY, repo.getArmingStatus());
+        }
+    }
+
+    @Test
+    public void eventOfferedWhileClosing_isStillApplied() throws Exception {
+        try (MappedFileSecurityRepositoryImpl repo = new MappedFileSecurityRepositoryImpl(dir.resolve("security.dat"))) {
+            SecurityService service = new SecurityService(repo, image -> DetectionResult.empty());
+            for (int round = 0; round < 200; round++) {
+                SecurityEventLoop loop = new SecurityEventLoop(service, 4);
+                List<CompletableFuture<Void>> barriers = new ArrayList<>();
+                Thread producer = new Thread(() -> {
+                    try {
+                        while (true) {
+                            barriers.add(loop.barrier());
+                        }
+                    } catch (RejectedExecutionException closed) {
+                        // expected once the loop is closed
+                    }
+                });
+                producer.start();
+                loop.close();
+                producer.join();
+                for (CompletableFuture<Void> barrier : barriers) {
+                    barrier.get(5, TimeUnit.SECONDS);
+                }
+            }
+        }
+    }
+}
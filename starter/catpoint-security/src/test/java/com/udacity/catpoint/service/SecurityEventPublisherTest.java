@@ -0,0 +1,98 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.AlarmStatus;
+import com.udacity.catpoint.data.MappedFileSecurityRepositoryImpl;
+import com.udacity.catpoint.image.service.DetectionResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecurityEventPublisherTest {
+
+    private static class OneAtATimeSubscriber implements Flow.Subscriber<SecurityEvent> {
+        final List<SecurityEvent> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch subscribed = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final long initialDemand;
+        Flow.Subscription subscription;
+
+        OneAtATimeSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(SecurityEvent item) {
+            received.add(item);
+            if (initialDemand > 0) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void events_areDeliveredInOrderOnDemand() throws InterruptedException {
+        SecurityService service = new SecurityService(
+                new MappedFileSecurityRepositoryImpl(dir.resolve("security.dat")), image -> DetectionResult.cat(100, Map.of()));
+        OneAtATimeSubscriber subscriber = new OneAtATimeSubscriber(1);
+        service.getEventPublisher().subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+
+        service.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        service.processImage(null);
+        service.setAlarmStatus(AlarmStatus.ALARM);
+        service.getEventPublisher().close();
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(3, subscriber.received.size());
+        assertEquals(AlarmStatus.PENDING_ALARM, ((AlarmStatusEvent) subscriber.received.get(0)).getCurrent());
+        assertTrue(subscriber.received.get(1) instanceof CatDetectionEvent);
+        assertEquals(AlarmStatus.ALARM, ((AlarmStatusEvent) subscriber.received.get(2)).getCurrent());
+    }
+
+    @Test
+    public void subscriberWithoutDemand_boundsBufferAndDropsExcess() throws InterruptedException {
+        SecurityEventPublisher publisher = new SecurityEventPublisher(4, Duration.ZERO);
+        OneAtATimeSubscriber stalled = new OneAtATimeSubscriber(0);
+        publisher.subscribe(stalled);
+        assertTrue(stalled.subscribed.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 100; i++) {
+            publisher.publish(new CatDetectionEvent(i % 2 == 0));
+        }
+
+        assertTrue(stalled.received.isEmpty());
+        assertEquals(100 - 4, publisher.getDropped());
+        publisher.close();
+    }
+}
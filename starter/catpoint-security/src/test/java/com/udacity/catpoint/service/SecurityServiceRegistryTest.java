@@ -0,0 +1,101 @@
+package com.udacity.catpoint.service;
+
+import com.udacity.catpoint.data.*;
+import com.udacity.catpoint.image.service.DetectionResult;
+import com.udacity.catpoint.image.service.ImageService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecurityServiceRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private final ImageService noCats = image -> DetectionResult.empty();
+
+    @Test
+    public void homes_haveSeparateState() throws IOException {
+        try (SecurityServiceRegistry registry = new SecurityServiceRegistry(
+                id -> new MappedFileSecurityRepositoryImpl(dir.resolve(id + ".dat")), noCats)) {
+            SecurityService first = registry.get("first");
+            SecurityService second = registry.get("second");
+            assertSame(first, registry.get("first"));
+
+            Sensor door = new Sensor("Front", SensorType.DOOR);
+            first.addSensor(door);
+            first.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            first.changeSensorActivationStatus(door, true);
+
+            assertEquals(AlarmStatus.PENDING_ALARM, first.getAlarmStatus());
+            assertEquals(AlarmStatus.NO_ALARM, second.getAlarmStatus());
+            assertEquals(ArmingStatus.DISARMED, second.getArmingStatus());
+            assertTrue(second.getSensors().isEmpty());
+            assertEquals(Set.of("first", "second"), registry.getHomeIds());
+        }
+    }
+
+    @Test
+    public void remove_closesRepository_andStateSurvivesReopen() throws IOException {
+        List<String> opened = new ArrayList<>();
+        try (SecurityServiceRegistry registry = new SecurityServiceRegistry(id -> {
+            opened.add(id);
+            return new MappedFileSecurityRepositoryImpl(dir.resolve(id + ".dat"));
+        }, noCats)) {
+            registry.get("home").setArmingStatus(ArmingStatus.ARMED_HOME);
+            registry.remove("home");
+            assertFalse(registry.find("home").isPresent());
+
+            assertEquals(ArmingStatus.ARMED_HOME, registry.get("home").getArmingStatus());
+            assertEquals(List.of("home", "home"), opened);
+        }
+    }
+
+    @Test
+    public void remove_closesService() throws Exception {
+        try (SecurityServiceRegistry registry = new SecurityServiceRegistry(
+                id -> new MappedFileSecurityRepositoryImpl(dir.resolve(id + ".dat")), noCats)) {
+            SecurityService service = registry.get("home");
+            assertFalse(service.processImageAsync(null).join());
+            CountDownLatch completed = new CountDownLatch(1);
+            service.getEventPublisher().subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(SecurityEvent item) {
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            });
+
+            registry.remove("home");
+
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+            CompletionException rejected = assertThrows(CompletionException.class,
+                    () -> service.processImageAsync(null).join());
+            assertTrue(rejected.getCause() instanceof RejectedExecutionException);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.udacity.catpoint.service;
 
 import com.udacity.catpoint.application.StatusListener;
 import com.udacity.catpoint.data.*;
+import com.udacity.catpoint.image.service.DetectionResult;
 import com.udacity.catpoint.image.service.ImageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,8 +10,25 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 
 import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,6 +42,7 @@ public class SecurityServiceTest {
         private Set<Sensor> sensors = new HashSet<>();
         private AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
         private ArmingStatus armingStatus = ArmingStatus.DISARMED;
+        int sensorWrites = 0;
 
         @Override
         public void addSensor(Sensor sensor) {
@@ -39,6 +58,16 @@ public class SecurityServiceTest {
         public void updateSensor(Sensor sensor) {
             sensors.remove(sensor);
             sensors.add(sensor);
+            sensorWrites++;
+        }
+
+        @Override
+        public void updateSensors(Collection<Sensor> updated) {
+            updated.forEach(sensor -> {
+                sensors.remove(sensor);
+                sensors.add(sensor);
+            });
+            sensorWrites++;
         }
 
         @Override
@@ -71,8 +100,8 @@ public class SecurityServiceTest {
         boolean containsCat = false;
         public void setContainsCat(boolean v) { containsCat = v; }
         @Override
-        public boolean imageContainsCat(BufferedImage image, float confidenceThreshold) {
-            return containsCat;
+        public DetectionResult detect(BufferedImage image) {
+            return containsCat ? DetectionResult.cat(100, Map.of()) : DetectionResult.empty();
         }
     }
 
@@ -80,6 +109,8 @@ public class SecurityServiceTest {
         boolean notified = false;
         AlarmStatus lastStatus = null;
         Boolean catDetected = null;
+        int sensorStatusChanges = 0;
+        Set<UUID> changedSensorIds = null;
 
         @Override
         public void notify(AlarmStatus status) {
@@ -94,7 +125,13 @@ public class SecurityServiceTest {
 
         @Override
         public void sensorStatusChanged() {
-            // not needed for tests
+            sensorStatusChanges++;
+        }
+
+        @Override
+        public void sensorsChanged(Set<UUID> sensorIds) {
+            changedSensorIds = sensorIds;
+            sensorStatusChanged();
         }
     }
 
@@ -194,6 +231,21 @@ public class SecurityServiceTest {
         assertEquals(AlarmStatus.ALARM, repo.getAlarmStatus());
     }
 
+    @Test
+    public void catConfidenceThreshold_decidesFromSameDetection() {
+        repo.setArmingStatus(ArmingStatus.ARMED_HOME);
+        SecurityService service = new SecurityService(repo, image -> DetectionResult.cat(70, Map.of()));
+
+        service.setCatConfidenceThreshold(80);
+        service.processImage(null);
+        assertEquals(AlarmStatus.NO_ALARM, repo.getAlarmStatus());
+
+        service.setCatConfidenceThreshold(60);
+        service.processImage(null);
+        assertEquals(AlarmStatus.ALARM, repo.getAlarmStatus());
+        assertThrows(IllegalArgumentException.class, () -> service.setCatConfidenceThreshold(101));
+    }
+
     @Test
     public void imageServiceNoCat_setsNoAlarm_ifNoSensorsActive() {
         repo.setArmingStatus(ArmingStatus.ARMED_HOME);
@@ -224,6 +276,65 @@ public class SecurityServiceTest {
         assertFalse(repo.getSensors().stream().anyMatch(Sensor::getActive));
     }
 
+    @Test
+    public void armed_persistsSensorResetOnce_andNotifiesOnce() {
+        for (int i = 0; i < 100; i++) {
+            repo.addSensor(createSensor("Sensor" + i, SensorType.MOTION, i % 3 == 0));
+        }
+        TestStatusListener tsl = new TestStatusListener();
+        securityService.addStatusListener(tsl);
+
+        securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+
+        assertFalse(repo.getSensors().stream().anyMatch(Sensor::getActive));
+        assertEquals(1, repo.sensorWrites);
+        assertEquals(1, tsl.sensorStatusChanges);
+        assertEquals(34, tsl.changedSensorIds.size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(AlarmStatus.class)
+    public void sensorBurst_matchesOneAtATime_withOneWriteAndNotification(AlarmStatus initialStatus) {
+        TestSecurityRepository sequentialRepo = new TestSecurityRepository();
+        SecurityService sequential = new SecurityService(sequentialRepo, imageService);
+        Random random = new Random(42);
+        for (int burst = 0; burst < 50; burst++) {
+            repo.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            repo.setAlarmStatus(initialStatus);
+            sequentialRepo.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            sequentialRepo.setAlarmStatus(initialStatus);
+            repo.getSensors().clear();
+            sequentialRepo.getSensors().clear();
+
+            Map<Sensor, Boolean> batch = new LinkedHashMap<>();
+            List<Sensor> copies = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                Sensor s = createSensor("Sensor" + i, SensorType.DOOR, random.nextBoolean());
+                Sensor copy = createSensor("Sensor" + i, SensorType.DOOR, s.getActive());
+                copy.setSensorId(s.getSensorId());
+                repo.addSensor(s);
+                sequentialRepo.addSensor(copy);
+                batch.put(s, random.nextBoolean());
+                copies.add(copy);
+            }
+            TestStatusListener tsl = new TestStatusListener();
+            securityService.addStatusListener(tsl);
+            repo.sensorWrites = 0;
+
+            securityService.changeSensorActivationStatuses(batch);
+            int i = 0;
+            for (Boolean active : batch.values()) {
+                sequential.changeSensorActivationStatus(copies.get(i++), active);
+            }
+
+            assertEquals(sequentialRepo.getAlarmStatus(), repo.getAlarmStatus());
+            assertEquals(sequentialRepo.activeSensorCount(), repo.activeSensorCount());
+            assertTrue(repo.sensorWrites <= 1);
+            assertTrue(tsl.sensorStatusChanges <= 1);
+            securityService.removeStatusListener(tsl);
+        }
+    }
+
     @Test
     public void armedHomeWhileCameraShowsCat_setsAlarm() {
         imageService.setContainsCat(true);
@@ -270,6 +381,160 @@ public class SecurityServiceTest {
         assertEquals(AlarmStatus.PENDING_ALARM, repo.getAlarmStatus());
     }
 
+    @Test
+    public void subscriptions_receiveOnlyMatchingEvents() {
+        repo.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        Sensor door = createSensor("Front", SensorType.DOOR, false);
+        Sensor motion = createSensor("Hall", SensorType.MOTION, false);
+        repo.addSensor(door);
+        repo.addSensor(motion);
+        List<AlarmStatusEvent> alarms = new ArrayList<>();
+        List<SensorStatusEvent> motionEvents = new ArrayList<>();
+        securityService.subscribe(AlarmStatusEvent.class, AlarmStatusEvent.into(AlarmStatus.ALARM), alarms::add);
+        Subscription motionSubscription = securityService.subscribe(SensorStatusEvent.class,
+                SensorStatusEvent.involving(SensorType.MOTION), motionEvents::add);
+
+        securityService.changeSensorActivationStatus(door, true);
+        securityService.changeSensorActivationStatus(motion, true);
+
+        assertEquals(1, alarms.size());
+        assertEquals(AlarmStatus.PENDING_ALARM, alarms.get(0).getPrevious());
+        assertEquals(1, motionEvents.size());
+        assertEquals(Set.of(motion.getSensorId()), motionEvents.get(0).getSensorIds());
+
+        motionSubscription.close();
+        securityService.changeSensorActivationStatus(motion, false);
+        assertEquals(1, motionEvents.size());
+        // the event keeps the state it announced after the sensor object changed again
+        assertTrue(motionEvents.get(0).getSensors().get(0).isActive());
+    }
+
+    @Test
+    public void processImageAsync_appliesResult() {
+        repo.setArmingStatus(ArmingStatus.ARMED_HOME);
+        imageService.setContainsCat(true);
+
+        assertTrue(securityService.processImageAsync(null).join());
+
+        assertEquals(AlarmStatus.ALARM, repo.getAlarmStatus());
+    }
+
+    @Test
+    public void processImageAsync_timesOut_withoutApplyingResult() {
+        repo.setArmingStatus(ArmingStatus.ARMED_HOME);
+        SecurityService slow = new SecurityService(repo, image -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return DetectionResult.cat(100, Map.of());
+        });
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> slow.processImageAsync(null, Duration.ofMillis(50), Runnable::run).join());
+
+        assertTrue(failure.getCause() instanceof TimeoutException);
+        assertEquals(AlarmStatus.NO_ALARM, repo.getAlarmStatus());
+    }
+
+    @Test
+    public void processImageAsync_newFrameCancelsPreviousScan() throws InterruptedException {
+        repo.setArmingStatus(ArmingStatus.ARMED_HOME);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        SecurityService service = new SecurityService(repo, image -> {
+            if (calls.incrementAndGet() == 1) {
+                firstStarted.countDown();
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                return DetectionResult.cat(100, Map.of());
+            }
+            return DetectionResult.empty();
+        });
+
+        CompletableFuture<Boolean> first = service.processImageAsync(null);
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> second = service.processImageAsync(null);
+
+        assertFalse(second.join());
+        assertThrows(CancellationException.class, first::join);
+        assertEquals(AlarmStatus.NO_ALARM, repo.getAlarmStatus());
+    }
+
+    @Test
+    public void processDetection_winsOverOlderAsyncScan() throws InterruptedException {
+        repo.setArmingStatus(ArmingStatus.ARMED_HOME);
+        CountDownLatch scanStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SecurityService service = new SecurityService(repo, image -> {
+            scanStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return DetectionResult.cat(100, Map.of());
+        });
+
+        CompletableFuture<Boolean> panelScan = service.processImageAsync(null);
+        assertTrue(scanStarted.await(5, TimeUnit.SECONDS));
+        service.processDetection(DetectionResult.empty());
+        release.countDown();
+        panelScan.join();
+
+        assertEquals(AlarmStatus.NO_ALARM, repo.getAlarmStatus());
+    }
+
+    @Test
+    public void close_stopsScansAndCompletesEventSubscribers() throws InterruptedException {
+        CountDownLatch scanStarted = new CountDownLatch(1);
+        CountDownLatch scanInterrupted = new CountDownLatch(1);
+        SecurityService service = new SecurityService(repo, image -> {
+            scanStarted.countDown();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException ie) {
+                scanInterrupted.countDown();
+            }
+            return DetectionResult.empty();
+        });
+        CountDownLatch completed = new CountDownLatch(1);
+        service.getEventPublisher().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(SecurityEvent item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        CompletableFuture<Boolean> scan = service.processImageAsync(null);
+        assertTrue(scanStarted.await(5, TimeUnit.SECONDS));
+        service.close();
+
+        assertTrue(scanInterrupted.await(5, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, scan::join);
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        CompletionException rejected = assertThrows(CompletionException.class,
+                () -> service.processImageAsync(null).join());
+        assertTrue(rejected.getCause() instanceof RejectedExecutionException);
+    }
+
     @Test
     public void setAlarmStatus_notifiesListeners_and_catDetected_notifies() {
         TestStatusListener tsl = new TestStatusListener();